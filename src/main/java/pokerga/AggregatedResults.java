@@ -1,40 +1,289 @@
 package pokerga;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The aggregated results from evaluating all of the organisms against all of
  * the hands. This class provides the basis for determining which organisms are
  * fit enough to be selected for replication or moved into the next generation.
+ * <p>
+ * When the organisms are known up front, each has an integer id, see
+ * {@link #id(Organism)}. Aggregating by id counts into arrays that belong to
+ * the calling thread, without hashing the organism or contending with other
+ * threads. They are merged into the results once, the first time the results
+ * are read after aggregating, which must not happen before every thread has
+ * finished aggregating. Later reads are plain lookups.
  */
 public final class AggregatedResults {
 
   private final ConcurrentMap<Organism, AggregatedResult> results = new ConcurrentHashMap<>();
 
+  // The organisms known up front and their ids, which index the tallies
+  private final List<Organism> organisms;
+  private final Map<Organism, Integer> ids = new HashMap<>();
+
+  // The counts of every thread that aggregated by id, since the last merge
+  private final ThreadLocal<Tally> tallies = ThreadLocal.withInitial(this::newTally);
+  private final Queue<Tally> threads = new ConcurrentLinkedQueue<>();
+
+  // Set when a tally has counts that have not been merged
+  private volatile boolean unmerged = false;
+
+  public AggregatedResults() {
+    this(List.of());
+  }
+
+  /**
+   * Creates the results of the specified organisms, whose ids are their index
+   * in the list.
+   */
+  public AggregatedResults(List<Organism> organisms) {
+    this.organisms = List.copyOf(organisms);
+    for (int id = 0; id < organisms.size(); id++) {
+      ids.putIfAbsent(organisms.get(id), id);
+    }
+  }
+
+  /**
+   * @return The id of an organism this instance was created with
+   */
+  public int id(Organism organism) {
+    Integer id = ids.get(organism);
+    if (id == null) {
+      throw new IllegalArgumentException("Unknown organism: " + organism.getName());
+    }
+    return id;
+  }
+
   public void aggregate(Result result) {
-    int evaluation = result.getHand().evaluation();
-    AggregatedResult counts = results.computeIfAbsent(result.getOrganism(), o -> new AggregatedResult(o));
+    aggregate(result.getHand(), result.getOrganism(), result.getResult());
+  }
+
+  public void aggregate(Hand hand, Organism organism, int result) {
+    int evaluation = hand.evaluation();
+    AggregatedResult counts = results.computeIfAbsent(organism, o -> new AggregatedResult(o));
     counts.total(evaluation);
-    if (result.getResult() == evaluation) {
+    if (result == evaluation) {
       counts.correct(evaluation);
     }
   }
 
+  /**
+   * Aggregates the evaluations of every hand in the table by the organism, as
+   * returned by {@link Interpreter#processBatch(Organism, HandTable)}.
+   */
+  public void aggregate(Organism organism, HandTable table, int[] evaluations) {
+    aggregate(organism, table, evaluations, 0);
+  }
+
+  /**
+   * Aggregates the evaluations of every hand in the table by the organism,
+   * counting every hand by its weight, along with the number of instructions
+   * it executed to evaluate them, as returned by
+   * {@link Interpreter#processBatch(Organism, HandTable, int[])}.
+   */
+  public void aggregate(Organism organism, HandTable table, int[] evaluations, long steps) {
+    int[] correct = new int[10];
+    int[] total = new int[10];
+    for (int i = 0, n = table.size(); i < n; i++) {
+      int evaluation = table.evaluation(i);
+      int weight = table.weight(i);
+      total[evaluation] += weight;
+      if (evaluations[i] == evaluation) {
+        correct[evaluation] += weight;
+      }
+    }
+
+    AggregatedResult counts = results.computeIfAbsent(organism, o -> new AggregatedResult(o));
+    counts.add(correct, total);
+    counts.steps.addAndGet(steps);
+  }
+
+  /**
+   * Aggregates the evaluations of every hand in the table by the organism with
+   * the id, in the same way as
+   * {@link #aggregate(Organism, HandTable, int[], long)}. The counts are kept
+   * by the calling thread until the results are read.
+   */
+  public void aggregate(int id, HandTable table, int[] evaluations, long steps) {
+    Tally tally = tallies.get();
+    int offset = id * 10;
+    for (int i = 0, n = table.size(); i < n; i++) {
+      int evaluation = table.evaluation(i);
+      int weight = table.weight(i);
+      tally.total[offset + evaluation] += weight;
+      if (evaluations[i] == evaluation) {
+        tally.correct[offset + evaluation] += weight;
+      }
+    }
+    tally.steps[id] += steps;
+    unmerged = true;
+  }
+
+  /**
+   * Aggregates an organism that evaluates every hand to the same result, see
+   * {@link Interpreter#triage(Organism)}.
+   *
+   * @param totals The number of hands of every evaluation class, as returned
+   *               by {@link HandTable#totals()}
+   * @param result The evaluation of every hand
+   */
+  public void aggregate(Organism organism, int[] totals, int result) {
+    int[] correct = new int[10];
+    if (result >= 0 && result < correct.length) {
+      correct[result] = totals[result];
+    }
+
+    AggregatedResult counts = results.computeIfAbsent(organism, o -> new AggregatedResult(o));
+    counts.add(correct, totals);
+  }
+
+  /**
+   * Aggregates the results of an organism for another organism with the same
+   * canonical program, see {@link Program#canonical()}, which therefore did
+   * not have to be evaluated.
+   *
+   * @param evaluated The organism that was evaluated
+   * @param duplicate The organism that shares its results
+   */
+  public void share(Organism evaluated, Organism duplicate) {
+    AggregatedResult source = getAggregatedResult(evaluated);
+    if (source == null) {
+      throw new IllegalStateException("Organism has not been evaluated: " + evaluated.getName());
+    }
+    aggregate(duplicate, source);
+  }
+
+  /**
+   * Aggregates results the organism has been found to have before, such as
+   * those of a {@link FitnessCache}.
+   */
+  public void aggregate(Organism organism, AggregatedResult result) {
+    AggregatedResult counts = results.computeIfAbsent(organism, o -> new AggregatedResult(o));
+    counts.add(result.correct(), result.total());
+    counts.steps.addAndGet(result.getSteps());
+    if (result.isEstimated()) {
+      counts.estimated = true;
+    }
+  }
+
+  /**
+   * Aggregates the counts of an organism evaluated elsewhere, such as by a
+   * {@link WorkerFarm}.
+   */
+  public void aggregate(Organism organism, int[] correct, int[] total, long steps) {
+    AggregatedResult counts = results.computeIfAbsent(organism, o -> new AggregatedResult(o));
+    counts.add(correct, total);
+    counts.steps.addAndGet(steps);
+  }
+
+  /**
+   * Marks the results of the organism as estimated from the hands it has been
+   * evaluated against so far, since it was not evaluated against the rest.
+   */
+  public void markEstimated(Organism organism) {
+    AggregatedResult counts = getAggregatedResult(organism);
+    if (counts == null) {
+      throw new IllegalStateException("Organism has not been evaluated: " + organism.getName());
+    }
+    counts.estimated = true;
+  }
+
   public AggregatedResult getAggregatedResult(Organism organism) {
+    merge();
     return results.get(organism);
   }
 
+  /**
+   * @return The results, those of the organisms known up front first and in
+   *         their order, so that organisms with the same score are ranked the
+   *         same however the threads interleaved
+   */
   public Collection<AggregatedResult> getResults() {
-    return results.values();
+    merge();
+    if (organisms.isEmpty()) {
+      return results.values();
+    }
+    Map<Organism, AggregatedResult> ordered = new LinkedHashMap<>();
+    for (Organism organism : organisms) {
+      AggregatedResult result = results.get(organism);
+      if (result != null) {
+        ordered.putIfAbsent(organism, result);
+      }
+    }
+    for (Map.Entry<Organism, AggregatedResult> entry : results.entrySet()) {
+      ordered.putIfAbsent(entry.getKey(), entry.getValue());
+    }
+    return ordered.values();
+  }
+
+  private Tally newTally() {
+    Tally tally = new Tally(organisms.size());
+    threads.add(tally);
+    return tally;
+  }
+
+  // Adds the tallies of all threads to the results, and clears them
+  private void merge() {
+    if (unmerged) {
+      mergeTallies();
+    }
+  }
+
+  private synchronized void mergeTallies() {
+    if (!unmerged) {
+      return;
+    }
+    unmerged = false;
+    for (Tally tally : threads) {
+      for (int id = 0; id < organisms.size(); id++) {
+        int offset = id * 10;
+        boolean counted = tally.steps[id] != 0;
+        for (int i = offset; i < offset + 10 && !counted; i++) {
+          counted = tally.total[i] != 0;
+        }
+        if (counted) {
+          AggregatedResult counts = results.computeIfAbsent(organisms.get(id), o -> new AggregatedResult(o));
+          counts.add(tally.correct, tally.total, offset);
+          counts.steps.addAndGet(tally.steps[id]);
+        }
+      }
+      Arrays.fill(tally.correct, 0);
+      Arrays.fill(tally.total, 0);
+      Arrays.fill(tally.steps, 0);
+    }
+  }
+
+  // The counts of one thread, indexed by organism id and then by evaluation
+  private static final class Tally {
+    final int[] correct;
+    final int[] total;
+    final long[] steps;
+
+    Tally(int organisms) {
+      this.correct = new int[organisms * 10];
+      this.total = new int[organisms * 10];
+      this.steps = new long[organisms];
+    }
   }
 
   public static final class AggregatedResult {
     private final Organism organism;
     private final AtomicInteger[] correct = new AtomicInteger[10];
     private final AtomicInteger[] total = new AtomicInteger[10];
+    private final AtomicLong steps = new AtomicLong();
+    private volatile boolean estimated;
 
     public AggregatedResult(Organism organism) {
       this.organism = organism;
@@ -64,6 +313,35 @@ public final class AggregatedResults {
       total[index].incrementAndGet();
     }
 
+    private void add(int[] correct, int[] total) {
+      add(correct, total, 0);
+    }
+
+    private void add(int[] correct, int[] total, int offset) {
+      for (int i = 0; i < this.correct.length; i++) {
+        this.correct[i].addAndGet(correct[offset + i]);
+        this.total[i].addAndGet(total[offset + i]);
+      }
+    }
+
+    /**
+     * The number of instructions the organism executed to evaluate the hands,
+     * zero for organisms that did not have to be evaluated at all. Scorers can
+     * use it to favor cheaper organisms.
+     */
+    public long getSteps() {
+      return steps.get();
+    }
+
+    /**
+     * Whether the organism was only evaluated against some of the hands, because
+     * it could not have scored among the best. Its counts are those of the
+     * hands it was evaluated against.
+     */
+    public boolean isEstimated() {
+      return estimated;
+    }
+
     public int[] total() {
       int[] arr = new int[total.length];
       for (int i = 0; i < arr.length; i++) {
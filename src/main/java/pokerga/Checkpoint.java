@@ -0,0 +1,264 @@
+package pokerga;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import pokerga.init.OrganismFactory;
+
+/**
+ * Saves the state of a run of the {@link Evaluator} every few generations, so
+ * that a run that was interrupted can be resumed from the last checkpoint and
+ * produce exactly what an uninterrupted run would. The state is the population
+ * about to be evaluated, the scores of the generation before it, the counter
+ * of the {@link OrganismFactory} and the state of every
+ * {@link RestorableRandom} of the operators and organism suppliers.
+ * <p>
+ * The state is captured by the evaluator thread, and written to a temporary
+ * file by a thread of its own, which then renames it over the checkpoint file.
+ * The checkpoint file is therefore always complete, either the previous
+ * checkpoint or the next.
+ * <p>
+ * The file starts with a magic number and a version, followed by the generation,
+ * the counter, the random states, the organisms with their chromosomes packed
+ * two genes to a byte without their noise, and the scores, all in big-endian order.
+ */
+public final class Checkpoint implements InitializingBean, DisposableBean {
+
+  // "PKCP"
+  static final int MAGIC = 0x504B4350;
+  static final int VERSION = 1;
+
+  private File file;
+  private int interval = 1;
+  private OrganismFactory factory;
+  private List<RestorableRandom> randoms = List.of();
+
+  // Writes the checkpoints in order, off the evaluator thread
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "checkpoint");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private Future<?> pending;
+
+  public void setFile(File file) {
+    this.file = file;
+  }
+
+  /**
+   * The number of generations between checkpoints.
+   *
+   * @param interval
+   */
+  public void setInterval(int interval) {
+    if (interval < 1) {
+      throw new IllegalArgumentException("Interval must be positive.");
+    }
+    this.interval = interval;
+  }
+
+  public void setFactory(OrganismFactory factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Every random of the run. Randoms that are not restored draw different
+   * numbers in a resumed run.
+   *
+   * @param randoms
+   */
+  public void setRandoms(List<RestorableRandom> randoms) {
+    this.randoms = List.copyOf(randoms);
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    Objects.requireNonNull(file);
+    Objects.requireNonNull(factory);
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    await();
+    writer.shutdown();
+  }
+
+  /**
+   * @return True if a checkpoint is due once the population of the generation
+   *         has been bred
+   */
+  public boolean isDue(int generation) {
+    return generation % interval == 0;
+  }
+
+  /**
+   * Captures the state of the run, and writes it in the background.
+   *
+   * @param population The population about to be evaluated
+   * @param scores     The scores of the generation before it
+   */
+  public synchronized void save(Population population, List<ScoredResult> scores) throws IOException {
+    byte[] state = capture(population, scores);
+    await();
+    pending = writer.submit(() -> {
+      write(state);
+      return null;
+    });
+  }
+
+  /**
+   * Waits for the checkpoint being written, if any.
+   *
+   * @throws IOException If writing it failed
+   */
+  public synchronized void await() throws IOException {
+    if (pending == null) {
+      return;
+    }
+    try {
+      pending.get();
+    } catch (ExecutionException e) {
+      throw new IOException("Writing the checkpoint failed.", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } finally {
+      pending = null;
+    }
+  }
+
+  private byte[] capture(Population population, List<ScoredResult> scores) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(population.getGeneration());
+    out.writeInt(factory.getCounter().get());
+    out.writeInt(randoms.size());
+    for (RestorableRandom random : randoms) {
+      out.writeLong(random.getState());
+    }
+
+    List<Organism> organisms = population.getOrganisms();
+    out.writeInt(organisms.size());
+    for (Organism organism : organisms) {
+      writeOrganism(out, organism);
+    }
+    out.writeInt(scores.size());
+    for (ScoredResult score : scores) {
+      writeOrganism(out, score.getOrganism());
+      for (int i = 0; i < HandClasses.CLASSES; i++) {
+        out.writeInt(score.getCorrect()[i]);
+        out.writeInt(score.getTotal()[i]);
+      }
+      out.writeDouble(score.getScore());
+      out.writeBoolean(score.isEstimated());
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private void write(byte[] state) throws IOException {
+    Path target = file.toPath().toAbsolutePath();
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(state);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Reads the last checkpoint, and restores the counter of the factory and the
+   * state of every random.
+   *
+   * @return The state of the run
+   */
+  public Resumed load() throws IOException {
+    try (InputStream is = new FileInputStream(file);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+      if (in.readInt() != MAGIC) {
+        throw new IllegalArgumentException("Not a checkpoint file: " + file);
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported checkpoint version: " + version);
+      }
+
+      int generation = in.readInt();
+      int counter = in.readInt();
+      int count = in.readInt();
+      if (count != randoms.size()) {
+        throw new IllegalStateException("The checkpoint has " + count + " randoms, the run " + randoms.size() + ".");
+      }
+      long[] states = new long[count];
+      for (int i = 0; i < count; i++) {
+        states[i] = in.readLong();
+      }
+
+      List<Organism> organisms = new ArrayList<>();
+      for (int i = in.readInt(); i > 0; i--) {
+        organisms.add(readOrganism(in));
+      }
+      List<ScoredResult> scores = new ArrayList<>();
+      for (int n = in.readInt(); n > 0; n--) {
+        Organism organism = readOrganism(in);
+        int[] correct = new int[HandClasses.CLASSES];
+        int[] total = new int[HandClasses.CLASSES];
+        for (int i = 0; i < HandClasses.CLASSES; i++) {
+          correct[i] = in.readInt();
+          total[i] = in.readInt();
+        }
+        double score = in.readDouble();
+        boolean estimated = in.readBoolean();
+        scores.add(new ScoredResult(organism, correct, total, score, estimated));
+      }
+
+      factory.getCounter().set(counter);
+      for (int i = 0; i < count; i++) {
+        randoms.get(i).setState(states[i]);
+      }
+      return new Resumed(new Population(generation, List.copyOf(organisms)), scores);
+    }
+  }
+
+  private static void writeOrganism(DataOutputStream out, Organism organism) throws IOException {
+    out.writeUTF(organism.getName());
+    Migration.writeChromosome(out, organism.getChromosome());
+  }
+
+  private static Organism readOrganism(DataInputStream in) throws IOException {
+    String name = in.readUTF();
+    return new Organism(name, Migration.readChromosome(in));
+  }
+
+  /**
+   * The state of a run read from a checkpoint.
+   */
+  public record Resumed(Population population, List<ScoredResult> scores) {
+  }
+}
@@ -0,0 +1,110 @@
+package pokerga;
+
+import pokerga.Interpreter.Halt;
+import pokerga.Interpreter.Inst;
+
+/**
+ * A {@link Program} that has been translated into JVM bytecode by the
+ * {@link ProgramCompiler}. Each program is a hidden class that extends this
+ * one and implements {@link #run(Inst, int, int)} as straight-line code with
+ * the opcodes and operands of the program inlined.
+ * <p>
+ * The opcodes themselves are executed by the same {@link Inst} methods the
+ * interpreter uses, so a compiled program returns exactly what the
+ * interpreter would for every hand.
+ * <p>
+ * This class is thread safe, the {@link Inst} of the calling thread holds the
+ * state of every evaluation.
+ */
+public abstract class CompiledProgram {
+
+  // OpCode ordinals passed as the 'until' argument of #run(Inst, int, int)
+  static final int UNTIL_EOF = OpCode.EOF.ordinal();
+  static final int UNTIL_ENDIF = OpCode.ENDIF.ordinal();
+  static final int UNTIL_ENDLOOP = OpCode.ENDLOOP.ordinal();
+
+  private final Program program;
+  private final Interpreter interpreter;
+
+  protected CompiledProgram(Program program, Interpreter interpreter) {
+    this.program = program;
+    this.interpreter = interpreter;
+  }
+
+  /**
+   * Evaluates the hand, returning the same value as
+   * {@link Interpreter#process(Hand, Organism)} would for the organism this
+   * program was compiled from.
+   *
+   * @param hand The hand to evaluate
+   * @return The best evaluation of the hand, or -1 if there was none
+   */
+  public int eval(Hand hand) {
+    return eval(interpreter.context().reset(hand, program));
+  }
+
+
+  /**
+   * Evaluates the hand the context has been reset with.
+   *
+   * @param inst A context reset with this program
+   * @return The best evaluation of the hand, or -1 if there was none
+   */
+  int eval(Inst inst) {
+    try {
+      run(inst, 0, UNTIL_EOF);
+    } catch (Halt e) {
+      // The evaluation ended early
+    }
+    return inst.returnValue;
+  }
+
+
+  /**
+   * Executes the program starting at the specified position until the opcode
+   * with the ordinal 'until' is executed, or the end of the program is reached.
+   * This is the compiled equivalent of {@link Inst#execUntil(OpCode)}.
+   *
+   * @param inst  The state of the evaluation
+   * @param pc    The position to begin executing at
+   * @param until The ordinal of the opcode that halts execution
+   * @return The position following the last executed instruction
+   */
+  abstract int run(Inst inst, int pc, int until);
+
+
+  /**
+   * Executes the IF found at the specified position.
+   *
+   * @return The position that execution continues at
+   */
+  final int ifop(Inst inst, int pos) {
+    int test = inst.test();
+    if (test < 0) {
+      return pos + 1;
+    }
+    if (test > 0) {
+      return run(inst, pos + 1, UNTIL_ENDIF);
+    }
+    return program.jumps[pos];
+  }
+
+
+  /**
+   * Executes the LOOP whose body starts at the specified position. Execution
+   * continues at that same position once the loop has finished.
+   */
+  final void loop(Inst inst, int pos) {
+    if (!inst.enterLoop()) {
+      return;
+    }
+
+    int low = inst.loopLow;
+    int high = inst.loopHigh;
+    for (int i = low; i <= high; i++) {
+      inst.stack.push((byte) i);
+      run(inst, pos, UNTIL_ENDLOOP);
+    }
+  }
+
+}
@@ -0,0 +1,293 @@
+package pokerga;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * The threads that create, evaluate and breed organisms. Every component that
+ * refers to the same scheduler shares its threads, so the compute of a process
+ * is sized in one place. Components without a scheduler of their own share
+ * the {@link #getDefault() default} one, with a thread per processor.
+ * <p>
+ * The threads are either a work-stealing pool, which splits the tasks of a
+ * call in halves so that idle threads take work from busy ones, or a fixed
+ * pool with a single queue of tasks. The pool is started on first use.
+ * <p>
+ * The scheduler counts the tasks it runs and the time its threads spend
+ * running them, and samples the number of tasks waiting for a thread, see
+ * {@link #getUsage()}.
+ */
+public final class ComputeScheduler implements DisposableBean {
+
+  // The scheduler whose fixed pool runs the current thread, if any
+  private static final ThreadLocal<ComputeScheduler> OWNER = new ThreadLocal<>();
+
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private String name = "compute";
+  private boolean workStealing = true;
+
+  private ExecutorService executor;
+  private final AtomicInteger threads = new AtomicInteger();
+
+  // The usage since the pool was started
+  private final long started = System.nanoTime();
+  private final LongAdder tasks = new LongAdder();
+  private final LongAdder busy = new LongAdder();
+  private final AtomicInteger peakQueueDepth = new AtomicInteger();
+
+  /**
+   * @return The scheduler of the components that are not given one
+   */
+  public static ComputeScheduler getDefault() {
+    return Default.INSTANCE;
+  }
+
+  /**
+   * The number of threads.
+   *
+   * @param parallelism
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive.");
+    }
+    this.parallelism = parallelism;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * The prefix of the names of the threads, which are numbered from one.
+   *
+   * @param name
+   */
+  public void setName(String name) {
+    if (name == null || name.isBlank()) {
+      throw new IllegalArgumentException("Name must not be blank.");
+    }
+    this.name = name;
+  }
+
+  /**
+   * Whether the threads steal work from each other, or take it from a single
+   * queue.
+   *
+   * @param workStealing
+   */
+  public void setWorkStealing(boolean workStealing) {
+    this.workStealing = workStealing;
+  }
+
+  @Override
+  public synchronized void destroy() throws Exception {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * Runs a task for every index from zero up to the number of tasks, and waits
+   * for all of them to finish. A task that fails fails the call, once the
+   * other tasks have finished.
+   */
+  public void run(int count, IntConsumer task) {
+    if (count <= 0) {
+      return;
+    }
+    ExecutorService executor = executor();
+
+    if (executor instanceof ForkJoinPool pool) {
+      pool.invoke(new Split(task, 0, count));
+      return;
+    }
+
+    // The threads of a fixed pool would wait for tasks queued behind them
+    if (OWNER.get() == this) {
+      for (int i = 0; i < count; i++) {
+        task.accept(i);
+      }
+      return;
+    }
+
+    List<Future<?>> futures = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int index = i;
+      futures.add(executor.submit(() -> execute(task, index)));
+    }
+    sampleQueueDepth();
+
+    RuntimeException failure = null;
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Error error) {
+          throw error;
+        }
+        if (failure == null) {
+          failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        for (Future<?> each : futures) {
+          each.cancel(true);
+        }
+        throw new IllegalStateException(e);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * @return The number of tasks waiting for a thread
+   */
+  public int getQueueDepth() {
+    ExecutorService executor;
+    synchronized (this) {
+      executor = this.executor;
+    }
+    if (executor instanceof ForkJoinPool pool) {
+      return (int) Math.min(Integer.MAX_VALUE, pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount());
+    } else if (executor instanceof ThreadPoolExecutor pool) {
+      return pool.getQueue().size();
+    }
+    return 0;
+  }
+
+  /**
+   * The usage of the scheduler since it was created. The peak queue depth is
+   * reset by every call, so that the difference to the usage of an earlier
+   * call holds the peak in between, see {@link Usage#since(Usage)}.
+   */
+  public Usage getUsage() {
+    return new Usage(System.nanoTime() - started, tasks.sum(), busy.sum(), peakQueueDepth.getAndSet(0),
+        parallelism);
+  }
+
+  private synchronized ExecutorService executor() {
+    if (executor == null) {
+      if (workStealing) {
+        executor = new ForkJoinPool(parallelism, pool -> {
+          ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName(name + "-" + threads.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, null, false);
+      } else {
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+              Thread thread = new Thread(() -> {
+                OWNER.set(this);
+                runnable.run();
+              }, name + "-" + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+      }
+    }
+    return executor;
+  }
+
+  private void execute(IntConsumer task, int index) {
+    long start = System.nanoTime();
+    try {
+      task.accept(index);
+    } finally {
+      busy.add(System.nanoTime() - start);
+      tasks.increment();
+    }
+  }
+
+  private void sampleQueueDepth() {
+    peakQueueDepth.accumulateAndGet(getQueueDepth(), Math::max);
+  }
+
+
+  /**
+   * The usage of a scheduler over a period of time.
+   *
+   * @param nanos          The length of the period
+   * @param tasks          The tasks run
+   * @param busyNanos      The time the threads spent running them
+   * @param peakQueueDepth The most tasks seen waiting for a thread
+   * @param parallelism    The number of threads
+   */
+  public record Usage(long nanos, long tasks, long busyNanos, int peakQueueDepth, int parallelism) {
+
+    /**
+     * @return The usage between an earlier usage and this one
+     */
+    public Usage since(Usage earlier) {
+      return new Usage(nanos - earlier.nanos, tasks - earlier.tasks, busyNanos - earlier.busyNanos, peakQueueDepth,
+          parallelism);
+    }
+
+    /**
+     * @return The fraction of the time of all threads spent running tasks
+     */
+    public double utilization() {
+      return nanos > 0 ? (double) busyNanos / nanos / parallelism : 0;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d tasks, %.1f%% utilization, peak queue depth %d", tasks, 100 * utilization(),
+          peakQueueDepth);
+    }
+  }
+
+
+  /**
+   * Runs a range of the tasks of a call, splitting it in halves until a single
+   * task remains.
+   */
+  private final class Split extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient IntConsumer task;
+    private final int from;
+    private final int to;
+
+    Split(IntConsumer task, int from, int to) {
+      this.task = task;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= 1) {
+        if (from < to) {
+          sampleQueueDepth();
+          execute(task, from);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new Split(task, from, middle), new Split(task, middle, to));
+    }
+  }
+
+
+  private static final class Default {
+    private static final ComputeScheduler INSTANCE = new ComputeScheduler();
+  }
+}
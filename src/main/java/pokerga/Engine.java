@@ -0,0 +1,17 @@
+package pokerga;
+
+import java.io.IOException;
+
+/**
+ * Evolves a population of organisms against the hands and prints the scores of
+ * the final population. A configuration defines a single engine, which
+ * {@link Main} runs.
+ *
+ * @see Evaluator
+ * @see SteadyStateEngine
+ */
+public interface Engine {
+
+  void evaluate() throws IOException;
+
+}
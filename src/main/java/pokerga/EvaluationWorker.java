@@ -0,0 +1,88 @@
+package pokerga;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import pokerga.AggregatedResults.AggregatedResult;
+
+/**
+ * The process of a {@link WorkerFarm} worker. It loads its own copy of the
+ * hands, then evaluates the batches of chromosomes it reads from its standard
+ * input in order, and writes the counts of every organism to its standard
+ * output, until its input is closed.
+ * <p>
+ * A batch request is its id, the number of chromosomes, and every chromosome
+ * as its number of genes followed by the genes packed two to a byte, noise
+ * removed. The response is the id, the number of organisms, and for every
+ * organism whether its results depend on the hand, its correct and total
+ * counts of every evaluation class and its steps.
+ */
+public final class EvaluationWorker {
+
+  private EvaluationWorker() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 6) {
+      System.err.println("Usage: EvaluationWorker <hand file> <max hands> <deduplicate> <max stack> <max steps>"
+          + " <vectorize>");
+      System.exit(1);
+    }
+
+    HandReader reader = new HandReader();
+    reader.setFile(new File(args[0]));
+    reader.setMaxHands(Integer.parseInt(args[1]));
+    reader.setDeduplicate(Boolean.parseBoolean(args[2]));
+    Interpreter interpreter = new Interpreter();
+    interpreter.setMaxStack(Integer.parseInt(args[3]));
+    interpreter.setMaxSteps(Integer.parseInt(args[4]));
+    interpreter.setVectorize(Boolean.parseBoolean(args[5]));
+    interpreter.setCompileThreshold(0);
+
+    HandTable table = reader.load().getTable();
+    int[] totals = table.totals();
+    int[] evaluations = new int[table.size()];
+
+    DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+    while (true) {
+      int batch;
+      try {
+        batch = in.readInt();
+      } catch (EOFException e) {
+        return;
+      }
+
+      int count = in.readInt();
+      out.writeInt(batch);
+      out.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        Organism organism = new Organism("worker", Migration.readChromosome(in));
+
+        AggregatedResults aggregator = new AggregatedResults();
+        Triage triage = interpreter.triage(organism);
+        if (!triage.isHandDependent()) {
+          aggregator.aggregate(organism, totals, triage.getValue());
+        } else {
+          long steps = interpreter.processBatch(organism, table, evaluations);
+          aggregator.aggregate(organism, table, evaluations, steps);
+        }
+
+        AggregatedResult result = aggregator.getAggregatedResult(organism);
+        int[] correct = result.correct();
+        int[] total = result.total();
+        out.writeBoolean(triage.isHandDependent());
+        for (int c = 0; c < HandClasses.CLASSES; c++) {
+          out.writeInt(correct[c]);
+          out.writeInt(total[c]);
+        }
+        out.writeLong(result.getSteps());
+      }
+      out.flush();
+    }
+  }
+}
@@ -3,22 +3,45 @@ package pokerga;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import org.springframework.beans.factory.DisposableBean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.beans.factory.InitializingBean;
 import pokerga.AggregatedResults.AggregatedResult;
 import pokerga.init.InitialPopulation;
 import pokerga.op.Operator;
+import pokerga.score.ScoreBounds;
 import pokerga.score.Scorer;
+import pokerga.score.StandardScorer;
 
-public final class Evaluator implements InitializingBean, DisposableBean {
+/**
+ * The generational {@link Engine}. Every generation is evaluated against the
+ * hands as a whole, scored and bred into the next by the {@link Operator}.
+ */
+public final class Evaluator implements Engine, InitializingBean {
 
-  private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  // Every scheduler thread should have this many tasks to pick from, so that
+  // threads that finish early can take work from the others
+  private static final int TASKS_PER_THREAD = 4;
+
+  // Hands are only split into chunks of at least this many
+  private static final int MIN_CHUNK = 1024;
+
+  // The evaluations of a batch of hands, reused by each executor thread
+  private final ThreadLocal<int[]> buffers = ThreadLocal.withInitial(() -> new int[0]);
+
+  // The chunks of every table a run evaluates against, by the number of
+  // chunks, so that the chunks and their projections are kept across
+  // generations
+  private final Map<HandTable, Map<Integer, List<HandTable>>> chunks = new IdentityHashMap<>();
+
+  // The blocks of every table a run races against, kept like the chunks
+  private final Map<HandTable, List<HandTable>> blocks = new IdentityHashMap<>();
 
   private HandReader handReader;
   private InitialPopulation initialPopulation;
@@ -26,6 +49,18 @@ public final class Evaluator implements InitializingBean, DisposableBean {
   private Scorer scorer;
   private Operator operator;
   private int generations;
+  private int fitnessCacheSize = 1024;
+  private boolean streaming = false;
+  private int streamBatchSize = 65536;
+  private int streamQueueSize = 4;
+  private boolean racing = false;
+  private int racingElites = 10;
+  private int racingBlock = 1000;
+  private double racingConfidence = 0.95;
+  private StratifiedSampler sampler = null;
+  private WorkerFarm farm = null;
+  private Checkpoint checkpoint = null;
+  private ComputeScheduler scheduler = ComputeScheduler.getDefault();
 
   public void setHandReader(HandReader handReader) {
     this.handReader = handReader;
@@ -51,6 +86,146 @@ public final class Evaluator implements InitializingBean, DisposableBean {
     this.generations = generations;
   }
 
+  /**
+   * The number of distinct programs whose results are remembered from one
+   * generation to the next, see {@link FitnessCache}. Zero disables the cache.
+   *
+   * @param fitnessCacheSize
+   */
+  public void setFitnessCacheSize(int fitnessCacheSize) {
+    if (fitnessCacheSize < 0) {
+      throw new IllegalArgumentException("Fitness cache size must not be negative.");
+    }
+    this.fitnessCacheSize = fitnessCacheSize;
+  }
+
+  /**
+   * Whether to stream the hands from the reader in batches every generation,
+   * instead of loading them all into memory once. See {@link HandStream}.
+   *
+   * @param streaming
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+
+  /**
+   * The number of hands of every streamed batch.
+   *
+   * @param streamBatchSize
+   */
+  public void setStreamBatchSize(int streamBatchSize) {
+    if (streamBatchSize < 1) {
+      throw new IllegalArgumentException("Stream batch size must be positive.");
+    }
+    this.streamBatchSize = streamBatchSize;
+  }
+
+  /**
+   * The number of batches that are read ahead of the evaluation when
+   * streaming.
+   *
+   * @param streamQueueSize
+   */
+  public void setStreamQueueSize(int streamQueueSize) {
+    if (streamQueueSize < 1) {
+      throw new IllegalArgumentException("Stream queue size must be positive.");
+    }
+    this.streamQueueSize = streamQueueSize;
+  }
+
+  /**
+   * Whether to evaluate the organisms against blocks of hands of growing size,
+   * and stop evaluating those that can no longer score among the elites. Their
+   * scores are estimated from the hands they were evaluated against. Requires
+   * the {@link StandardScorer}, and does not apply when streaming.
+   *
+   * @param racing
+   */
+  public void setRacing(boolean racing) {
+    this.racing = racing;
+  }
+
+  /**
+   * The number of best organisms that must be scored exactly when racing,
+   * typically the count of the {@link pokerga.op.ElitistSelector}.
+   *
+   * @param racingElites
+   */
+  public void setRacingElites(int racingElites) {
+    if (racingElites < 1) {
+      throw new IllegalArgumentException("Racing elites must be positive.");
+    }
+    this.racingElites = racingElites;
+  }
+
+  /**
+   * The number of hands of the first block when racing, every block after it
+   * is twice as large as the one before.
+   *
+   * @param racingBlock
+   */
+  public void setRacingBlock(int racingBlock) {
+    if (racingBlock < 1) {
+      throw new IllegalArgumentException("Racing block must be positive.");
+    }
+    this.racingBlock = racingBlock;
+  }
+
+  /**
+   * The confidence of the bounds on the scores when racing, see
+   * {@link ScoreBounds}.
+   *
+   * @param racingConfidence
+   */
+  public void setRacingConfidence(double racingConfidence) {
+    if (!(racingConfidence > 0 && racingConfidence < 1)) {
+      throw new IllegalArgumentException("Racing confidence must be between 0 and 1.");
+    }
+    this.racingConfidence = racingConfidence;
+  }
+
+  /**
+   * Evaluates every generation against a stratified sample of the hands drawn
+   * by the sampler, instead of every hand. Does not apply when streaming.
+   *
+   * @param sampler
+   */
+  public void setSampler(StratifiedSampler sampler) {
+    this.sampler = sampler;
+  }
+
+  /**
+   * Evaluates the organisms in the worker processes of the farm, which load
+   * the hands themselves, instead of in this process. Does not apply together
+   * with streaming, sampling or racing.
+   *
+   * @param farm
+   */
+  public void setFarm(WorkerFarm farm) {
+    this.farm = farm;
+  }
+
+  /**
+   * Saves the state of the run every few generations, so that it can be
+   * resumed, see {@link #resume()}. Does not apply together with racing, whose
+   * results depend on the fitness cache, which is not saved.
+   *
+   * @param checkpoint
+   */
+  public void setCheckpoint(Checkpoint checkpoint) {
+    this.checkpoint = checkpoint;
+  }
+
+  /**
+   * The threads that evaluate the organisms.
+   *
+   * @param scheduler
+   */
+  public void setScheduler(ComputeScheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
   @Override
   public void afterPropertiesSet() throws Exception {
     Objects.requireNonNull(handReader);
@@ -58,19 +233,58 @@ public final class Evaluator implements InitializingBean, DisposableBean {
     Objects.requireNonNull(interpreter);
     Objects.requireNonNull(scorer);
     Objects.requireNonNull(operator);
+    Objects.requireNonNull(scheduler);
     if (generations < 1) {
       throw new IllegalArgumentException("Generations must be positive.");
     }
+    if (racing && !(scorer instanceof StandardScorer)) {
+      throw new IllegalArgumentException("Racing requires the StandardScorer.");
+    }
+    if (streaming && sampler != null) {
+      throw new IllegalArgumentException("Sampling requires the hands to be loaded, not streamed.");
+    }
+    if (streaming && racing) {
+      throw new IllegalArgumentException("Racing requires the hands to be loaded, not streamed.");
+    }
+    if (farm != null && (streaming || sampler != null || racing)) {
+      throw new IllegalArgumentException("The worker farm evaluates every hand, without streaming, sampling or racing.");
+    }
+    if (checkpoint != null && racing) {
+      throw new IllegalArgumentException("Racing runs cannot be resumed from a checkpoint.");
+    }
   }
 
+
   @Override
-  public void destroy() throws Exception {
-    executor.shutdown();
+  public void evaluate() throws IOException {
+    printSettings();
+
+    // Initialize the population
+    System.out.println("Initializing the population.");
+    Population population = initialPopulation.get();
+    System.out.println("Finished initializing the population.");
+
+    evaluate(population, List.of());
   }
 
+  /**
+   * Resumes the run from the last checkpoint, producing exactly what the run
+   * would have, had it not been interrupted.
+   */
+  public void resume() throws IOException {
+    if (checkpoint == null) {
+      throw new IllegalStateException("No checkpoint to resume from.");
+    }
+    printSettings();
 
-  public void evaluate() throws IOException {
+    Checkpoint.Resumed resumed = checkpoint.load();
+    Population population = resumed.population();
+    System.out.println("Resuming from generation " + (population.getGeneration() + 1) + ".");
+
+    evaluate(population, resumed.scores());
+  }
 
+  private void printSettings() {
     System.out.println();
     System.out.println("-------------------------------------------------------");
     System.out.println();
@@ -80,55 +294,136 @@ public final class Evaluator implements InitializingBean, DisposableBean {
     System.out.println();
     System.out.println("-------------------------------------------------------");
     System.out.println();
+  }
 
-    // Initialize the population
-    System.out.println("Initializing the population.");
-    Population population = initialPopulation.get();
-    System.out.println("Finished initializing the population.");
+  /**
+   * Evaluates the generations from the population on.
+   *
+   * @param previous The scores of the generation before the population, if any
+   */
+  private void evaluate(Population population, List<ScoredResult> previous) throws IOException {
 
     // This is a list of scores for the final population. This is updated inside
     // of the loop, but we only care about the scores associated to the last
     // population.
-    final List<ScoredResult> scores = new ArrayList<>();
+    final List<ScoredResult> scores = new ArrayList<>(previous);
+    chunks.clear();
+    blocks.clear();
+
+    // Read the data file once, every generation is evaluated against the same
+    // table of hands. When streaming, the file is read again every generation,
+    // and the workers of a farm read it themselves.
+    HandTable table = null;
+    if (!streaming && farm == null) {
+      System.out.println("Loading the hands.");
+      HandDataset dataset = handReader.load();
+      table = dataset.getTable();
+      if (dataset.size() < dataset.rows()) {
+        System.out.println("Distinct hands: " + dataset.size() + " of " + dataset.rows());
+      }
+    }
+
+    // The hands of every class, for the sampler to draw from
+    HandClasses classes = sampler != null ? new HandClasses(table) : null;
+
+    // The results of the organisms of earlier generations, which remain valid
+    // as long as the hands do not change
+    FitnessCache cache = new FitnessCache(fitnessCacheSize);
 
     // Iterate for the number of generations specified
-    for (int i = 0; i < generations; i++) {
+    for (int i = population.getGeneration(); i < generations; i++) {
       System.out.println("Generation: " + (population.getGeneration() + 1) + " / " + generations);
 
+      ComputeScheduler.Usage usage = scheduler.getUsage();
+
       // Retrieve the list of organisms from the population
       List<Organism> organisms = population.getOrganisms();
 
+      // Let the interpreter compile the organisms that keep surviving
+      int compiled = interpreter.promote(population);
+      if (compiled > 0) {
+        System.out.println("  Compiled organisms: " + compiled);
+      }
+
+      // Every generation is evaluated against a sample of its own, so the
+      // results of earlier generations no longer apply
+      HandTable hands = table;
+      if (classes != null) {
+        hands = sampler.sample(classes, population.getGeneration());
+        cache.clear();
+        chunks.clear();
+        blocks.clear();
+        System.out.println("  Sampled hands: " + hands.size() + " of " + table.size());
+      }
+
       // Create a ResultAggregator which will help keep track of our results.
-      AggregatedResults aggregator = new AggregatedResults();
-
-      // Stores our future tasks
-      List<Future<?>> futures = new ArrayList<>();
-
-      // Read the data file for each hand and submit the organisms for evaluation
-      handReader.read(hand -> {
-        Future<?> future = executor.submit(() -> {
-          evaluate(hand, organisms, aggregator);
-        });
-        futures.add(future);
-      });
-
-      // Wait for the evaluations to finish
-      try {
-        int count = 0;
-        for (Future<?> future : futures) {
-          future.get();
-          if (count > 0 && count % 1000 == 0) {
-            System.out.println("  Hand: " + count);
+      AggregatedResults aggregator = new AggregatedResults(organisms);
+
+
+      long memoHits = interpreter.getMemoHits();
+      long memoMisses = interpreter.getMemoMisses();
+
+      // Organisms with the same canonical program return the same results, so
+      // only one of every group has to be evaluated
+      Map<Program, List<Organism>> groups = group(organisms);
+      if (groups.size() < organisms.size()) {
+        System.out.println("  Duplicate organisms: " + (organisms.size() - groups.size()));
+      }
+
+      List<List<Organism>> evaluated = new ArrayList<>();
+      List<List<Organism>> known = new ArrayList<>();
+      long cacheHits = cache.getHits();
+      long cacheMisses = cache.getMisses();
+      long cacheEvictions = cache.getEvictions();
+
+      // Every distinct organism is evaluated against the whole table, unless
+      // an earlier generation already did
+      for (Map.Entry<Program, List<Organism>> entry : groups.entrySet()) {
+        List<Organism> group = entry.getValue();
+        AggregatedResult cached = cache.get(entry.getKey());
+        if (cached != null) {
+          for (Organism organism : group) {
+            aggregator.aggregate(organism, cached);
           }
-          count++;
+          known.add(group);
+        } else {
+          evaluated.add(group);
         }
+      }
 
-      } catch (ExecutionException e) {
-        throw new IllegalStateException(e);
+      // Evaluate every organism against every hand
+      int degenerate;
+      if (farm != null) {
+        degenerate = farm.evaluate(evaluated, aggregator);
+      } else if (hands == null) {
+        degenerate = stream(evaluated, aggregator);
+      } else if (racing) {
+        degenerate = race(evaluated, known, hands, aggregator);
+      } else {
+        degenerate = evaluate(evaluated, hands, aggregator, true);
+      }
 
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        throw new IllegalStateException(e);
+      interpreter.publishProfile(population.getGeneration() + 1);
+      for (List<Organism> group : evaluated) {
+        Organism organism = group.get(0);
+        for (Organism duplicate : group.subList(1, group.size())) {
+          aggregator.share(organism, duplicate);
+        }
+        AggregatedResult result = aggregator.getAggregatedResult(organism);
+        if (!result.isEstimated()) {
+          cache.put(organism.getProgram(), result);
+        }
+      }
+      System.out.println("  Fitness cache: " + (cache.getHits() - cacheHits) + " hits, "
+          + (cache.getMisses() - cacheMisses) + " misses, "
+          + (cache.getEvictions() - cacheEvictions) + " evictions");
+      if (degenerate > 0) {
+        System.out.println("  Degenerate organisms: " + degenerate);
+      }
+      memoHits = interpreter.getMemoHits() - memoHits;
+      memoMisses = interpreter.getMemoMisses() - memoMisses;
+      if (memoHits > 0) {
+        System.out.printf("  Memoized hands: %.1f%%%n", 100.0 * memoHits / (memoHits + memoMisses));
       }
 
       // Record the scores of this generation.
@@ -137,10 +432,16 @@ public final class Evaluator implements InitializingBean, DisposableBean {
 
       // Calculate the scores of the current generation.
       // Sort the scores according to their natural ordering
+      long steps = 0;
+      long mostSteps = 0;
       for (AggregatedResult result : aggregator.getResults()) {
         ScoredResult score = scorer.score(result);
         scores.add(score);
+        steps += result.getSteps();
+        mostSteps = Math.max(mostSteps, result.getSteps());
       }
+      System.out.println("  Steps: " + steps + ", most by one organism: " + mostSteps);
+      System.out.println("  Scheduler: " + scheduler.getUsage().since(usage));
       Collections.sort(scores);
 
       // Defensive copy of the scores to pass into the operator
@@ -155,10 +456,20 @@ public final class Evaluator implements InitializingBean, DisposableBean {
         int next = population.getGeneration() + 1;
         List<Organism> evolved = operator.get(copy);
         population = new Population(next, evolved);
+
+        // The population and the state of the operator are saved together,
+        // before the next generation changes either
+        if (checkpoint != null && checkpoint.isDue(next)) {
+          checkpoint.save(population, copy);
+        }
       }
 
     } // end for loop
 
+    if (checkpoint != null) {
+      checkpoint.await();
+    }
+
     // Print out the scores of this generation
     System.out.println("Results:");
     for (ScoredResult score : scores) {
@@ -168,10 +479,255 @@ public final class Evaluator implements InitializingBean, DisposableBean {
   }
 
 
-  private void evaluate(Hand hand, List<Organism> organisms, AggregatedResults aggregator) {
+  /**
+   * Groups the organisms by their canonical program, in population order. The
+   * first organism of every group is the one to evaluate, preferably one that
+   * has been compiled.
+   */
+  private static Map<Program, List<Organism>> group(List<Organism> organisms) {
+    Map<Program, List<Organism>> groups = new LinkedHashMap<>();
     for (Organism organism : organisms) {
-      Result result = interpreter.process(hand, organism);
-      aggregator.aggregate(result);
+      List<Organism> group = groups.computeIfAbsent(organism.getProgram(), p -> new ArrayList<>());
+      group.add(organism);
+      if (group.size() > 1 && organism.getCompiled() != null && group.get(0).getCompiled() == null) {
+        Collections.swap(group, 0, group.size() - 1);
+      }
+    }
+    return groups;
+  }
+
+
+  /**
+   * Evaluates the first organism of every group against every chunk of the
+   * table.
+   *
+   * @param progress Whether to report every 100 organisms evaluated
+   * @return The number of organisms whose results do not depend on the hand
+   */
+  private int evaluate(List<List<Organism>> groups, HandTable table, AggregatedResults aggregator, boolean progress) {
+    return evaluate(groups, table, chunks(table, groups.size()), aggregator, progress);
+  }
+
+  private int evaluate(List<List<Organism>> groups, HandTable table, List<HandTable> chunks,
+      AggregatedResults aggregator, boolean progress) {
+    Generation generation = new Generation(groups, chunks, table.totals(), aggregator, progress);
+    scheduler.run(generation.size(), generation::evaluate);
+    return generation.degenerate.get();
+  }
+
+  /**
+   * Evaluates the first organism of every group against the hands streamed
+   * from the reader, one batch at a time while the next batches are read.
+   *
+   * @return The number of organisms whose results do not depend on the hand
+   */
+  private int stream(List<List<Organism>> groups, AggregatedResults aggregator) {
+    int degenerate = 0;
+    int batches = 0;
+    long hands = 0;
+    try (HandStream stream = new HandStream(handReader, streamBatchSize, streamQueueSize)) {
+      for (HandTable batch; (batch = stream.next()) != null;) {
+        int count = evaluate(groups, batch, split(batch, count(batch, groups.size())), aggregator, false);
+        if (batches++ == 0) {
+          degenerate = count;
+        }
+        hands += batch.size();
+      }
+    }
+    System.out.println("  Streamed hands: " + hands + " in " + batches + " batches");
+    return degenerate;
+  }
+
+
+  /**
+   * Evaluates the first organism of every group against blocks of the table,
+   * each twice as large as the one before. After every block, the organisms
+   * that are unlikely to score among the elites, given the bounds on the
+   * scores of the others, are stopped and their results marked estimated.
+   *
+   * @param known The organisms whose results are already known
+   * @return The number of organisms whose results do not depend on the hand
+   */
+  private int race(List<List<Organism>> groups, List<List<Organism>> known, HandTable table,
+      AggregatedResults aggregator) {
+    ScoreBounds bounds = new ScoreBounds(table.totals(), racingConfidence);
+    List<List<Organism>> racing = new ArrayList<>(groups);
+    int degenerate = 0;
+    int stopped = 0;
+    int rounds = 0;
+
+    List<HandTable> blocks = this.blocks.computeIfAbsent(table, this::blocks);
+    for (HandTable block : blocks) {
+      if (racing.isEmpty()) {
+        break;
+      }
+      int count = evaluate(racing, block, aggregator, false);
+      if (rounds++ == 0) {
+        degenerate = count;
+      }
+      if (rounds == blocks.size()) {
+        break;
+      }
+
+      // The lowest score the elites are likely to have
+      List<double[]> lowers = new ArrayList<>();
+      for (List<List<Organism>> each : List.of(racing, known)) {
+        for (List<Organism> group : each) {
+          AggregatedResult result = aggregator.getAggregatedResult(group.get(0));
+          lowers.add(new double[] { bounds.lower(result.correct(), result.total()), group.size() });
+        }
+      }
+      lowers.sort((a, b) -> Double.compare(b[0], a[0]));
+      double cutoff = Double.NEGATIVE_INFINITY;
+      int elites = 0;
+      for (double[] lower : lowers) {
+        elites += (int) lower[1];
+        if (elites >= racingElites) {
+          cutoff = lower[0];
+          break;
+        }
+      }
+
+      for (Iterator<List<Organism>> it = racing.iterator(); it.hasNext();) {
+        Organism organism = it.next().get(0);
+        AggregatedResult result = aggregator.getAggregatedResult(organism);
+        if (bounds.upper(result.correct(), result.total()) < cutoff) {
+          aggregator.markEstimated(organism);
+          it.remove();
+          stopped++;
+        }
+      }
+    }
+
+    if (stopped > 0) {
+      System.out.println("  Racing: " + stopped + " organisms stopped early, " + rounds + " rounds");
+    }
+    return degenerate;
+  }
+
+
+  /**
+   * Splits the table into the blocks of a race, the first of
+   * {@link #setRacingBlock(int) racingBlock} hands and every other twice as
+   * large as the one before.
+   */
+  private List<HandTable> blocks(HandTable table) {
+    List<HandTable> blocks = new ArrayList<>();
+    for (int from = 0, block = racingBlock; from < table.size(); block *= 2) {
+      int to = (int) Math.min(table.size(), (long) from + block);
+      blocks.add(table.slice(from, to));
+      from = to;
+    }
+    return blocks;
+  }
+
+  /**
+   * Splits the table into chunks of hands, so that there are enough tasks to
+   * keep every thread of the scheduler busy. Large populations are only split by
+   * organism. Chunks are a multiple of {@link HandTable#LANES} hands, which
+   * the Vector API evaluates at once.
+   * <p>
+   * The chunks are kept for the rest of the run, or until the generation is
+   * evaluated against a sample of its own, as they depend only on the size of
+   * the table and the number of chunks.
+   */
+  private List<HandTable> chunks(HandTable table, int organisms) {
+    return chunks.computeIfAbsent(table, key -> new HashMap<>())
+        .computeIfAbsent(count(table, organisms), count -> split(table, count));
+  }
+
+  /**
+   * @return The number of chunks to split the table into
+   */
+  private int count(HandTable table, int organisms) {
+    int tasks = scheduler.getParallelism() * TASKS_PER_THREAD;
+    int count = organisms >= tasks ? 1 : (tasks + organisms - 1) / Math.max(1, organisms);
+    return Math.max(1, Math.min(count, table.size() / MIN_CHUNK));
+  }
+
+  private static List<HandTable> split(HandTable table, int count) {
+    if (count == 1) {
+      return List.of(table);
+    }
+
+    int size = (table.size() + count - 1) / count;
+    size = (size + HandTable.LANES - 1) / HandTable.LANES * HandTable.LANES;
+    List<HandTable> chunks = new ArrayList<>();
+    for (int from = 0; from < table.size(); from += size) {
+      chunks.add(table.slice(from, Math.min(from + size, table.size())));
+    }
+    return chunks;
+  }
+
+
+  /**
+   * The organisms of a generation to evaluate against the chunks of the table.
+   * Every pair of an organism and a chunk is evaluated by its own task.
+   */
+  private final class Generation {
+    private final List<List<Organism>> groups;
+    private final List<HandTable> chunks;
+    private final int[] totals;
+    private final AggregatedResults aggregator;
+
+    // The id of the first organism of every group in the aggregator
+    private final int[] ids;
+
+    // The organisms whose results do not depend on the hand
+    private final AtomicInteger degenerate = new AtomicInteger();
+
+    // The tasks that have finished, for reporting progress
+    private final boolean progress;
+    private final AtomicInteger done = new AtomicInteger();
+
+    Generation(List<List<Organism>> groups, List<HandTable> chunks, int[] totals, AggregatedResults aggregator,
+        boolean progress) {
+      this.groups = groups;
+      this.chunks = chunks;
+      this.totals = totals;
+      this.aggregator = aggregator;
+      this.progress = progress;
+      this.ids = new int[groups.size()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = aggregator.id(groups.get(i).get(0));
+      }
+    }
+
+    int size() {
+      return groups.size() * chunks.size();
+    }
+
+    /**
+     * Evaluates the first organism of a group against a chunk of the table.
+     * Organisms whose results do not depend on the hand are scored from the
+     * totals instead, once.
+     */
+    void evaluate(int task) {
+      List<Organism> group = groups.get(task / chunks.size());
+      HandTable chunk = chunks.get(task % chunks.size());
+      Organism organism = group.get(0);
+
+      Triage triage = interpreter.triage(organism);
+      if (!triage.isHandDependent()) {
+        if (task % chunks.size() == 0) {
+          aggregator.aggregate(organism, totals, triage.getValue());
+          degenerate.addAndGet(group.size());
+        }
+      } else {
+        int[] evaluations = buffers.get();
+        if (evaluations.length < chunk.size()) {
+          evaluations = new int[chunk.size()];
+          buffers.set(evaluations);
+        }
+
+        long steps = interpreter.processBatch(organism, chunk, evaluations);
+        aggregator.aggregate(ids[task / chunks.size()], chunk, evaluations, steps);
+      }
+
+      int count = done.incrementAndGet();
+      if (progress && count % (100 * chunks.size()) == 0) {
+        System.out.println("  Organism: " + count / chunks.size());
+      }
     }
   }
 
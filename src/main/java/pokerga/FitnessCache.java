@@ -0,0 +1,89 @@
+package pokerga;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import pokerga.AggregatedResults.AggregatedResult;
+
+/**
+ * Remembers the results of evaluating a program against the hands, so that
+ * organisms that survive into the next generation, or are created again, do
+ * not have to be evaluated again. Results are keyed by the canonical program,
+ * see {@link Program#canonical()}, and the least recently used are evicted
+ * once the cache is full.
+ * <p>
+ * The cached results are only valid as long as the hands do not change, and
+ * the cache is not safe for use by multiple threads.
+ */
+public final class FitnessCache {
+
+  private final int capacity;
+  private final Map<Program, AggregatedResult> results;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  public FitnessCache(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity must not be negative.");
+    }
+    this.capacity = capacity;
+    this.results = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Program, AggregatedResult> eldest) {
+        if (size() > FitnessCache.this.capacity) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Looks up the results of the program.
+   *
+   * @return The results, or null if the program has to be evaluated
+   */
+  public AggregatedResult get(Program program) {
+    AggregatedResult result = results.get(program);
+    if (result != null) {
+      hits++;
+    } else {
+      misses++;
+    }
+    return result;
+  }
+
+  /**
+   * Remembers the results of the program, which must no longer change.
+   */
+  public void put(Program program, AggregatedResult result) {
+    if (capacity > 0) {
+      results.put(program, result);
+    }
+  }
+
+  public void clear() {
+    results.clear();
+  }
+
+  public int size() {
+    return results.size();
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+}
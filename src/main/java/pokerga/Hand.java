@@ -14,9 +14,20 @@ public final class Hand implements Iterable<Card> {
   private final List<Card> hand;
   private final int evaluation;
 
+  // The ranks and suits of the cards in the same order as the hand, which is
+  // the layout the Interpreter reads cards from.
+  final byte[] ranks;
+  final byte[] suits;
+
   private Hand(List<Card> hand, int evaluation) {
     this.hand = hand;
     this.evaluation = evaluation;
+    this.ranks = new byte[hand.size()];
+    this.suits = new byte[hand.size()];
+    for (int i = 0; i < hand.size(); i++) {
+      ranks[i] = (byte) hand.get(i).getRank();
+      suits[i] = (byte) hand.get(i).getSuit();
+    }
   }
 
   public static Builder newBuilder() {
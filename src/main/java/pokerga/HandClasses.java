@@ -0,0 +1,60 @@
+package pokerga;
+
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * The hands of a table indexed by their evaluation class, so that the hands of
+ * a class can be drawn without scanning the whole table. The poker data is
+ * heavily skewed, nearly all hands are of the first two classes, while the last
+ * classes have only a handful each.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+public final class HandClasses {
+
+  /**
+   * The number of evaluation classes.
+   */
+  public static final int CLASSES = 10;
+
+  private final HandTable table;
+
+  // The indexes of the hands of every class in the table, in table order
+  private final int[][] hands = new int[CLASSES][];
+
+  public HandClasses(HandTable table) {
+    this.table = table;
+
+    IntArrayList[] lists = new IntArrayList[CLASSES];
+    for (int c = 0; c < CLASSES; c++) {
+      lists[c] = new IntArrayList();
+    }
+    for (int i = 0; i < table.size(); i++) {
+      lists[table.evaluation(i)].add(i);
+    }
+    for (int c = 0; c < CLASSES; c++) {
+      hands[c] = lists[c].toArray();
+    }
+  }
+
+  public HandTable getTable() {
+    return table;
+  }
+
+  /**
+   * @return The number of hands of the evaluation class
+   */
+  public int size(int evaluation) {
+    return hands[evaluation].length;
+  }
+
+  /**
+   * @param evaluation The evaluation class
+   * @param index      The index of the hand among the hands of the class
+   * @return The index of the hand in the table
+   */
+  public int hand(int evaluation, int index) {
+    return hands[evaluation][index];
+  }
+
+}
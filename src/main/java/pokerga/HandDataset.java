@@ -0,0 +1,90 @@
+package pokerga;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The hands of a data file, parsed once by {@link HandReader#load()} and
+ * shared by every generation of a run. The hands are kept in the columns of a
+ * {@link HandTable}, and rebuilt on demand when they are accessed one at a
+ * time.
+ * <p>
+ * A hand may stand for several identical rows of the file, see
+ * {@link HandReader#setDeduplicate(boolean)}.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+public final class HandDataset implements Iterable<Hand> {
+
+  private final HandTable table;
+
+  public HandDataset(HandTable table) {
+    this.table = table;
+  }
+
+  /**
+   * @return The hands in a table, for evaluation by the {@link Interpreter}
+   */
+  public HandTable getTable() {
+    return table;
+  }
+
+  /**
+   * @return The number of hands
+   */
+  public int size() {
+    return table.size();
+  }
+
+  /**
+   * @return The number of rows of the file the hands stand for
+   */
+  public int rows() {
+    int rows = 0;
+    for (int i = 0; i < table.size(); i++) {
+      rows += table.weight(i);
+    }
+    return rows;
+  }
+
+  /**
+   * @return The number of rows of the file the hand stands for
+   */
+  public int weight(int index) {
+    return table.weight(index);
+  }
+
+  public Hand get(int index) {
+    if (index < 0 || index >= table.size()) {
+      throw new IndexOutOfBoundsException(index);
+    }
+
+    // The cards are already sorted, so the builder keeps their order
+    Hand.Builder builder = Hand.newBuilder();
+    for (int card = 0; card < HandTable.CARDS; card++) {
+      builder.addCard(table.rank(index, card), table.suit(index, card));
+    }
+    return builder.evaluation(table.evaluation(index)).build();
+  }
+
+  @Override
+  public Iterator<Hand> iterator() {
+    return new Iterator<Hand>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < table.size();
+      }
+
+      @Override
+      public Hand next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return get(index++);
+      }
+    };
+  }
+
+}
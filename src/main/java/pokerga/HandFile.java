@@ -0,0 +1,142 @@
+package pokerga;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compact binary file of hands, which {@link HandReader} maps into memory
+ * instead of parsing. Every hand is packed into a single long: the evaluation
+ * takes the top 4 bits, followed by 6 bits for every card in the order of the
+ * hand, 4 bits of rank and 2 bits of suit. The file starts with a magic number
+ * and a version, followed by the packed hands in big-endian order.
+ * <p>
+ * The UCI data files are converted with:
+ *
+ * <pre>
+ * java -cp target/pokerga.jar pokerga.HandFile data/poker-hand-testing.data data/poker-hand-testing.bin
+ * </pre>
+ */
+public final class HandFile {
+
+  // "PKHD"
+  static final int MAGIC = 0x504B4844;
+  static final int VERSION = 1;
+
+  // The magic number and the version
+  private static final int HEADER = 8;
+
+  private static final int CARD_BITS = 6;
+  private static final int EVALUATION_SHIFT = HandTable.CARDS * CARD_BITS;
+
+  private HandFile() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: HandFile <csv file> <binary file>");
+      System.exit(1);
+    }
+
+    HandReader reader = new HandReader();
+    reader.setFile(new File(args[0]));
+    reader.setMaxHands(-1);
+    int count = convert(reader, new File(args[1]));
+    System.out.println("Converted " + count + " hands.");
+  }
+
+  /**
+   * Writes every hand the reader reads into a binary file.
+   *
+   * @return The number of hands written
+   */
+  public static int convert(HandReader reader, File file) throws IOException {
+    try (OutputStream os = new FileOutputStream(file);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      int[] count = new int[1];
+      reader.read(hand -> {
+        try {
+          out.writeLong(pack(hand));
+          count[0]++;
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      return count[0];
+    }
+  }
+
+  /**
+   * @return True if the file starts with the magic number of a binary file
+   */
+  public static boolean isBinary(File file) throws IOException {
+    try (InputStream is = new FileInputStream(file);
+        DataInputStream in = new DataInputStream(is)) {
+      return file.length() >= HEADER && in.readInt() == MAGIC;
+    }
+  }
+
+  /**
+   * Maps the packed hands of a binary file into memory. The mapping remains
+   * valid after the channel is closed.
+   */
+  static LongBuffer map(File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+        throw new IllegalArgumentException("Not a binary hand file: " + file);
+      }
+      int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported binary hand file version: " + version);
+      }
+      return buffer.asLongBuffer();
+    }
+  }
+
+
+  static long pack(Hand hand) {
+    long packed = hand.evaluation();
+    for (int card = 0; card < HandTable.CARDS; card++) {
+      packed = packed << CARD_BITS | hand.ranks[card] << 2 | hand.suits[card] - 1;
+    }
+    return packed;
+  }
+
+  static Hand unpack(long packed) {
+    Hand.Builder builder = Hand.newBuilder();
+    for (int card = 0; card < HandTable.CARDS; card++) {
+      builder.addCard(rank(packed, card), suit(packed, card));
+    }
+    return builder.evaluation(evaluation(packed)).build();
+  }
+
+  static int evaluation(long packed) {
+    return (int) (packed >>> EVALUATION_SHIFT);
+  }
+
+  static int rank(long packed, int card) {
+    return (int) (packed >>> shift(card) + 2) & 0xF;
+  }
+
+  static int suit(long packed, int card) {
+    return ((int) (packed >>> shift(card)) & 0x3) + 1;
+  }
+
+  private static int shift(int card) {
+    return (HandTable.CARDS - 1 - card) * CARD_BITS;
+  }
+}
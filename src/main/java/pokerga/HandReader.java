@@ -1,5 +1,8 @@
 package pokerga;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongIntHashMap;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
@@ -7,10 +10,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.LongBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import org.springframework.beans.factory.InitializingBean;
 
 public final class HandReader implements InitializingBean {
@@ -19,6 +27,12 @@ public final class HandReader implements InitializingBean {
 
   private File file = null;
   private int maxHands = 1000;
+  private boolean deduplicate = false;
+  private boolean parallel = false;
+
+  public File getFile() {
+    return file;
+  }
 
   public void setFile(File file) {
     this.file = file;
@@ -32,6 +46,33 @@ public final class HandReader implements InitializingBean {
     this.maxHands = maxHands;
   }
 
+  public boolean isDeduplicate() {
+    return deduplicate;
+  }
+
+  /**
+   * Collapses identical rows into a single hand when loading a dataset, see
+   * {@link #load()}. Hands are sorted by rank when they are built, so
+   * rows that only list the cards in a different order are often identical.
+   * Cards of the same rank keep the order of their suits, which a program can
+   * observe.
+   *
+   * @param deduplicate
+   */
+  public void setDeduplicate(boolean deduplicate) {
+    this.deduplicate = deduplicate;
+  }
+
+  /**
+   * Parses the rows of the file on all cores when loading a dataset, see
+   * {@link #load()}. The file itself is still read by a single thread.
+   *
+   * @param parallel
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+
   @Override
   public void afterPropertiesSet() throws Exception {
     Objects.requireNonNull(file);
@@ -41,6 +82,96 @@ public final class HandReader implements InitializingBean {
   }
 
   public void read(Consumer<Hand> consumer) throws IOException {
+    if (HandFile.isBinary(file)) {
+      LongBuffer hands = mapped();
+      for (int i = 0; i < hands.limit(); i++) {
+        consumer.accept(HandFile.unpack(hands.get(i)));
+      }
+    } else {
+      lines(line -> consumer.accept(parse(line)));
+    }
+  }
+
+  /**
+   * Reads every hand of the file once, into a dataset that every generation
+   * can share. Binary files, see {@link HandFile}, are mapped into memory
+   * rather than parsed, and their packed hands decoded into the columns of the
+   * table, which are a copy on the heap of every process that loads them.
+   * When deduplicating, every distinct hand is added once, in the order it
+   * first appears, with the number of rows it appears in as its weight.
+   */
+  public HandDataset load() throws IOException {
+    LongBuffer hands = HandFile.isBinary(file) ? mapped() : parsed();
+    return new HandDataset(deduplicate ? deduplicated(hands) : table(hands));
+  }
+
+  /**
+   * Reads the hands in batches of the specified size, the last of which may be
+   * smaller. When deduplicating, identical hands are only collapsed within a
+   * batch. See {@link HandStream} for reading ahead of the evaluation.
+   */
+  public void readBatches(int batchSize, Consumer<HandTable> consumer) throws IOException {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive.");
+    }
+
+    long[] batch = new long[batchSize];
+    int[] size = new int[1];
+    LongConsumer add = hand -> {
+      batch[size[0]++] = hand;
+      if (size[0] == batchSize) {
+        consumer.accept(batch(batch, size[0]));
+        size[0] = 0;
+      }
+    };
+
+    if (HandFile.isBinary(file)) {
+      LongBuffer hands = mapped();
+      for (int i = 0; i < hands.limit(); i++) {
+        add.accept(hands.get(i));
+      }
+    } else {
+      lines(line -> add.accept(HandFile.pack(parse(line))));
+    }
+    if (size[0] > 0) {
+      consumer.accept(batch(batch, size[0]));
+    }
+  }
+
+  private HandTable batch(long[] hands, int size) {
+    LongBuffer buffer = LongBuffer.wrap(hands, 0, size);
+    return deduplicate ? deduplicated(buffer) : table(buffer);
+  }
+
+  /**
+   * Reads the hands into a table, see {@link #load()}.
+   */
+  public HandTable readTable() throws IOException {
+    return load().getTable();
+  }
+
+  // The packed hands of a binary file that are within maxHands
+  private LongBuffer mapped() throws IOException {
+    LongBuffer hands = HandFile.map(file);
+    if (maxHands > 0 && maxHands < hands.limit()) {
+      hands.limit(maxHands);
+    }
+    return hands;
+  }
+
+  // The packed hands of a CSV file that are within maxHands
+  private LongBuffer parsed() throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines(lines::add);
+
+    long[] hands = new long[lines.size()];
+    IntStream indexes = IntStream.range(0, hands.length);
+    (parallel ? indexes.parallel() : indexes).forEach(i -> hands[i] = HandFile.pack(parse(lines.get(i))));
+    return LongBuffer.wrap(hands);
+  }
+
+  // Passes the trimmed, non-empty lines of the file that are within maxHands
+  private void lines(Consumer<String> consumer) throws IOException {
     int count = 0;
     try (BufferedReader reader = reader(file)) {
       for (;;) {
@@ -56,12 +187,45 @@ public final class HandReader implements InitializingBean {
         if (line.isEmpty()) {
           continue;
         }
+        consumer.accept(line);
+      }
+    }
+  }
+
+  private static Hand parse(String line) {
+    return Hand.from(regex.split(line));
+  }
 
-        String[] parts = regex.split(line);
-        Hand hand = Hand.from(parts);
-        consumer.accept(hand);
+  private static HandTable table(LongBuffer hands) {
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < hands.limit(); i++) {
+      builder.add(hands.get(i), 1);
+    }
+    return builder.build();
+  }
+
+  // The packed form of a hand is its key, identical hands pack identically
+  private static HandTable deduplicated(LongBuffer hands) {
+    LongArrayList distinct = new LongArrayList();
+    IntArrayList weights = new IntArrayList();
+    LongIntHashMap indexes = new LongIntHashMap();
+    for (int i = 0; i < hands.limit(); i++) {
+      long key = hands.get(i);
+      int index = indexes.indexOf(key);
+      if (indexes.indexExists(index)) {
+        weights.buffer[indexes.indexGet(index)]++;
+      } else {
+        indexes.indexInsert(index, key, distinct.size());
+        distinct.add(key);
+        weights.add(1);
       }
     }
+
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < distinct.size(); i++) {
+      builder.add(distinct.get(i), weights.get(i));
+    }
+    return builder.build();
   }
 
   private static BufferedReader reader(File file) throws IOException {
@@ -0,0 +1,114 @@
+package pokerga;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads the hands of a {@link HandReader} in batches on a thread of its own,
+ * ahead of the batches being evaluated. At most a fixed number of batches are
+ * queued, once they are the reader waits for the evaluation to catch up. The
+ * hands are never all held in memory at once, so datasets of any size can be
+ * evaluated with a fixed heap.
+ * <p>
+ * A stream is read once, by a single thread. Closing it stops the reader.
+ */
+public final class HandStream implements AutoCloseable {
+
+  // Queued by the reader after the last batch
+  private static final HandTable END = HandTable.newBuilder().build();
+
+  private final BlockingQueue<HandTable> batches;
+  private final Thread reader;
+
+  // Set by the reader before it queues the end, if reading failed
+  private volatile Exception failure;
+
+  private boolean ended = false;
+
+  /**
+   * Starts reading the hands.
+   *
+   * @param batchSize The number of hands of every batch
+   * @param capacity The number of batches read ahead of the evaluation
+   */
+  public HandStream(HandReader handReader, int batchSize, int capacity) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive.");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive.");
+    }
+
+    this.batches = new ArrayBlockingQueue<>(capacity);
+    this.reader = new Thread(() -> read(handReader, batchSize), "hand-stream");
+    this.reader.setDaemon(true);
+    this.reader.start();
+  }
+
+  private void read(HandReader handReader, int batchSize) {
+    try {
+      handReader.readBatches(batchSize, this::put);
+    } catch (Closed e) {
+      return;
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+    }
+    try {
+      put(END);
+    } catch (Closed e) {
+      // Nobody is waiting for the end
+    }
+  }
+
+  private void put(HandTable batch) {
+    try {
+      batches.put(batch);
+    } catch (InterruptedException e) {
+      throw new Closed();
+    }
+  }
+
+  /**
+   * Waits for the next batch of hands.
+   *
+   * @return The batch, or null once every hand has been read
+   * @throws IllegalStateException If reading the hands failed
+   */
+  public HandTable next() {
+    if (ended) {
+      return null;
+    }
+
+    HandTable batch;
+    try {
+      batch = batches.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+
+    if (batch == END) {
+      ended = true;
+      if (failure != null) {
+        throw new IllegalStateException("Reading the hands failed.", failure);
+      }
+      return null;
+    }
+    return batch;
+  }
+
+  @Override
+  public void close() {
+    reader.interrupt();
+  }
+
+  // Unwinds the reader once the stream has been closed
+  private static final class Closed extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    Closed() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,245 @@
+package pokerga;
+
+import java.util.Arrays;
+
+/**
+ * A columnar table of hands. The ranks, suits and evaluations of all hands are
+ * stored in parallel primitive arrays, which lets the {@link Interpreter} run a
+ * single program over contiguous memory with
+ * {@link Interpreter#processBatch(Organism, HandTable)}.
+ * <p>
+ * The cards of a hand are stored in the same order as {@link Hand#get(int)},
+ * with the cards of hand {@code i} at indexes {@code [i * 5, i * 5 + 5)}.
+ * <p>
+ * A hand may stand for several identical rows of the data, see
+ * {@link HandReader#setDeduplicate(boolean)}. Its weight is the number of rows,
+ * and it counts that many times towards the results.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+public final class HandTable {
+
+  static final int CARDS = 5;
+
+  // The card-major columns are padded to a multiple of this many hands, the
+  // widest byte vector there is.
+  static final int LANES = 64;
+
+  final byte[] ranks;
+  final byte[] suits;
+  final byte[] evaluations;
+  final int[] weights;
+
+  // Computed on first use by #rankColumns() and #suitColumns()
+  private volatile byte[] rankColumns;
+  private volatile byte[] suitColumns;
+
+  // Computed on first use by #projection(int), indexed by features
+  private final Projection[] projections = new Projection[(Projection.ALL | Projection.SUIT_COUNTS) + 1];
+
+  private HandTable(byte[] ranks, byte[] suits, byte[] evaluations, int[] weights) {
+    this.ranks = ranks;
+    this.suits = suits;
+    this.evaluations = evaluations;
+    this.weights = weights;
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  public int size() {
+    return evaluations.length;
+  }
+
+  public int rank(int hand, int card) {
+    return ranks[hand * CARDS + card];
+  }
+
+  public int suit(int hand, int card) {
+    return suits[hand * CARDS + card];
+  }
+
+  public int evaluation(int hand) {
+    return evaluations[hand];
+  }
+
+  /**
+   * The number of rows of the data the hand stands for.
+   */
+  public int weight(int hand) {
+    return weights[hand];
+  }
+
+  /**
+   * Partitions the hands of this table by the features of a hand a program can
+   * observe. Partitions are computed once and shared by every program that
+   * observes the same features.
+   *
+   * @param features A combination of the features defined by {@link Projection}
+   */
+  synchronized Projection projection(int features) {
+    Projection projection = projections[features];
+    if (projection == null) {
+      projection = Projection.of(this, features);
+      projections[features] = projection;
+    }
+    return projection;
+  }
+
+  /**
+   * Copies some of the hands of this table into a new table.
+   *
+   * @param hands The indexes of the hands to copy
+   * @param count The number of indexes to use
+   */
+  HandTable subset(int[] hands, int count) {
+    byte[] r = new byte[count * CARDS];
+    byte[] s = new byte[count * CARDS];
+    byte[] e = new byte[count];
+    int[] w = new int[count];
+    for (int i = 0; i < count; i++) {
+      int hand = hands[i];
+      System.arraycopy(ranks, hand * CARDS, r, i * CARDS, CARDS);
+      System.arraycopy(suits, hand * CARDS, s, i * CARDS, CARDS);
+      e[i] = evaluations[hand];
+      w[i] = weights[hand];
+    }
+    return new HandTable(r, s, e, w);
+  }
+
+  /**
+   * Copies a range of the hands of this table into a new table.
+   *
+   * @param from The index of the first hand to copy
+   * @param to The index after the last hand to copy
+   */
+  HandTable slice(int from, int to) {
+    return new HandTable(
+        Arrays.copyOfRange(ranks, from * CARDS, to * CARDS),
+        Arrays.copyOfRange(suits, from * CARDS, to * CARDS),
+        Arrays.copyOfRange(evaluations, from, to),
+        Arrays.copyOfRange(weights, from, to));
+  }
+
+  /**
+   * The distance between two card columns, the number of hands rounded up to a
+   * multiple of {@link #LANES}.
+   */
+  int stride() {
+    return (size() + LANES - 1) / LANES * LANES;
+  }
+
+  /**
+   * The ranks in card-major order, the rank of card {@code c} of hand {@code i}
+   * is at {@code c * stride() + i}. Padding hands have a rank of zero.
+   */
+  byte[] rankColumns() {
+    byte[] columns = rankColumns;
+    if (columns == null) {
+      rankColumns = columns = transpose(ranks);
+    }
+    return columns;
+  }
+
+  /**
+   * The suits in card-major order, laid out like {@link #rankColumns()}.
+   */
+  byte[] suitColumns() {
+    byte[] columns = suitColumns;
+    if (columns == null) {
+      suitColumns = columns = transpose(suits);
+    }
+    return columns;
+  }
+
+  private byte[] transpose(byte[] cards) {
+    int stride = stride();
+    byte[] columns = new byte[CARDS * stride];
+    for (int i = 0, n = size(); i < n; i++) {
+      for (int c = 0; c < CARDS; c++) {
+        columns[c * stride + i] = cards[i * CARDS + c];
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * The number of rows of every evaluation class in the table, counting every
+   * hand by its weight.
+   *
+   * @return An array indexed by evaluation class
+   */
+  public int[] totals() {
+    int[] totals = new int[10];
+    for (int i = 0; i < evaluations.length; i++) {
+      totals[evaluations[i]] += weights[i];
+    }
+    return totals;
+  }
+
+  public static class Builder {
+    private byte[] ranks = new byte[1024 * CARDS];
+    private byte[] suits = new byte[1024 * CARDS];
+    private byte[] evaluations = new byte[1024];
+    private int[] weights = new int[1024];
+    private int size = 0;
+
+    public Builder add(Hand hand) {
+      return add(hand, 1);
+    }
+
+    /**
+     * Adds a hand that stands for the specified number of rows of the data.
+     */
+    public Builder add(Hand hand, int weight) {
+      if (weight < 1) {
+        throw new IllegalArgumentException("Weight must be positive.");
+      }
+      grow();
+
+      System.arraycopy(hand.ranks, 0, ranks, size * CARDS, CARDS);
+      System.arraycopy(hand.suits, 0, suits, size * CARDS, CARDS);
+      evaluations[size] = (byte) hand.evaluation();
+      weights[size] = weight;
+      size++;
+      return this;
+    }
+
+    /**
+     * Adds a hand packed by {@link HandFile}, without creating the hand.
+     */
+    Builder add(long packed, int weight) {
+      if (weight < 1) {
+        throw new IllegalArgumentException("Weight must be positive.");
+      }
+      grow();
+
+      for (int card = 0; card < CARDS; card++) {
+        ranks[size * CARDS + card] = (byte) HandFile.rank(packed, card);
+        suits[size * CARDS + card] = (byte) HandFile.suit(packed, card);
+      }
+      evaluations[size] = (byte) HandFile.evaluation(packed);
+      weights[size] = weight;
+      size++;
+      return this;
+    }
+
+    private void grow() {
+      if (size == evaluations.length) {
+        ranks = Arrays.copyOf(ranks, ranks.length * 2);
+        suits = Arrays.copyOf(suits, suits.length * 2);
+        evaluations = Arrays.copyOf(evaluations, evaluations.length * 2);
+        weights = Arrays.copyOf(weights, weights.length * 2);
+      }
+    }
+
+    public HandTable build() {
+      return new HandTable(
+          Arrays.copyOf(ranks, size * CARDS),
+          Arrays.copyOf(suits, size * CARDS),
+          Arrays.copyOf(evaluations, size),
+          Arrays.copyOf(weights, size));
+    }
+  }
+}
@@ -1,13 +1,25 @@
 package pokerga;
 
-import com.carrotsearch.hppc.ByteStack;
-import java.nio.CharBuffer;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Provides parsing and interpretation of the hexstring that follows the
  * specification. The opcodes defined will be implemented by this class.
  * <p>
+ * Organisms that survive {@link #setCompileThreshold(int) several} generations
+ * unchanged are compiled to bytecode by the {@link ProgramCompiler}, new
+ * offspring are always interpreted. Both give exactly the same results.
+ * <p>
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector},
+ * {@link #processBatch(Organism, HandTable)} evaluates interpreted organisms
+ * against many hands at once with the {@link VectorEngine}. Otherwise, or when
+ * {@link #setVectorize(boolean) disabled}, hands are evaluated one at a time.
+ * <p>
  * This class is thread safe and the public method(s) can be safely called
  * concurrently.
  */
@@ -15,6 +27,31 @@ public final class Interpreter {
 
   private final int maxDepth = 1;
   private int maxStack = 2048;
+  private int maxSteps = Integer.MAX_VALUE;
+  private int compileThreshold = 3;
+  private boolean vectorize = true;
+  private int memoCapacity = 8192;
+  private boolean profile = false;
+
+  // The number of consecutive generations each organism has been part of the
+  // population of every lineage. Only touched between generations by
+  // #promote(Population, Object).
+  private final Map<Object, Map<Organism, Integer>> survivals = new HashMap<>();
+
+  // Every thread evaluating hands reuses a single execution context, so the
+  // steady state evaluation does not allocate.
+  private final ThreadLocal<Inst> contexts = ThreadLocal.withInitial(this::newContext);
+
+  // The profile of every thread, while profiling
+  private final Queue<Profile> profiles = new ConcurrentLinkedQueue<>();
+
+  // The evaluation of every class of a Projection, reused by each thread
+  private final ThreadLocal<int[]> memos = ThreadLocal.withInitial(() -> new int[0]);
+  private final LongAdder memoHits = new LongAdder();
+  private final LongAdder memoMisses = new LongAdder();
+
+  // Null if the Vector API is not available
+  private final VectorEngine vectors = VectorEngine.load(this);
 
   public void setMaxStack(int maxStack) {
     if (maxStack < 1) {
@@ -23,6 +60,154 @@ public final class Interpreter {
     this.maxStack = maxStack;
   }
 
+  /**
+   * The largest number of instructions a single evaluation may execute. Once
+   * the budget runs out the evaluation ends with the best value returned so
+   * far. Unknown opcodes do nothing and are not counted. Zero means there is
+   * no limit, which is the default.
+   *
+   * @param maxSteps
+   */
+  public void setMaxSteps(int maxSteps) {
+    if (maxSteps < 0) {
+      throw new IllegalArgumentException("Max steps must not be negative.");
+    }
+    this.maxSteps = maxSteps == 0 ? Integer.MAX_VALUE : maxSteps;
+  }
+
+  /**
+   * The number of generations an organism must be part of the population before
+   * it is compiled to bytecode. Zero disables compilation.
+   *
+   * @param compileThreshold
+   */
+  public void setCompileThreshold(int compileThreshold) {
+    if (compileThreshold < 0) {
+      throw new IllegalArgumentException("Compile threshold must not be negative.");
+    }
+    this.compileThreshold = compileThreshold;
+  }
+
+  /**
+   * Whether batches of hands are evaluated with the Vector API when it is
+   * available. Enabled by default.
+   *
+   * @param vectorize
+   */
+  public void setVectorize(boolean vectorize) {
+    this.vectorize = vectorize;
+  }
+
+  /**
+   * @return True if batches of hands are evaluated with the Vector API
+   */
+  public boolean isVectorized() {
+    return vectorize && vectors != null && !profile;
+  }
+
+  /**
+   * Whether to count the opcodes executed, IFs taken, LOOP iterations, RETs
+   * and the largest stack size, and publish them as JDK Flight Recorder events
+   * with {@link #publishProfile(int)}. While profiling, every hand is
+   * interpreted on its own, neither compiled, vectorized nor memoized, and no
+   * organism is triaged as independent of the hand, so that the counts are
+   * those of the full mix of instructions. Disabled by default, which costs
+   * nothing: the profiling context is not even loaded.
+   *
+   * @param profile
+   */
+  public void setProfile(boolean profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * The largest number of distinct hands that are memoized for an organism.
+   * An organism is only evaluated once for all hands that look the same
+   * through the features it can observe, see {@link Projection}. Organisms
+   * that can tell more hands apart than this, or more than half of the hands,
+   * are evaluated against every hand. Zero disables memoization.
+   *
+   * @param memoCapacity
+   */
+  public void setMemoCapacity(int memoCapacity) {
+    if (memoCapacity < 0) {
+      throw new IllegalArgumentException("Memo capacity must not be negative.");
+    }
+    this.memoCapacity = memoCapacity;
+  }
+
+  int maxStack() {
+    return maxStack;
+  }
+
+  int maxDepth() {
+    return maxDepth;
+  }
+
+  int maxSteps() {
+    return maxSteps;
+  }
+
+
+  /**
+   * Records that the organisms of the population are about to be evaluated, and
+   * compiles those that have now survived for the configured number of
+   * generations. Organisms that are no longer part of the population are
+   * forgotten, which lets their compiled classes be unloaded.
+   *
+   * @param population The population about to be evaluated
+   * @return The number of organisms in the population that run compiled
+   */
+  public int promote(Population population) {
+    return promote(population, this);
+  }
+
+  /**
+   * Like {@link #promote(Population)}, for one of several populations that
+   * evolve side by side, such as the islands of the {@link IslandEngine}. The
+   * organisms of every lineage survive, or are forgotten, on their own.
+   *
+   * @param population The population about to be evaluated
+   * @param lineage    The key of the populations it descends from
+   * @return The number of organisms in the population that run compiled
+   */
+  public synchronized int promote(Population population, Object lineage) {
+    Map<Organism, Integer> survivals = this.survivals.getOrDefault(lineage, Map.of());
+    Map<Organism, Integer> next = new HashMap<>();
+    int count = 0;
+    for (Organism organism : population.getOrganisms()) {
+      int generations = survivals.getOrDefault(organism, 0) + 1;
+      next.put(organism, generations);
+
+      if (compileThreshold > 0 && generations == compileThreshold) {
+        organism.setCompiled(ProgramCompiler.compile(organism.getProgram(), this));
+      }
+      if (organism.getCompiled() != null) {
+        count++;
+      }
+    }
+    this.survivals.put(lineage, next);
+    return count;
+  }
+
+
+  /**
+   * Analyzes whether the results of the organism depend on the hand. Organisms
+   * that never return, or always return the same value, do not need to be
+   * evaluated against any hand. While profiling, every organism is hand
+   * dependent, so that every organism is interpreted.
+   *
+   * @return The triage of the organism
+   */
+  public Triage triage(Organism organism) {
+    Triage triage = organism.getTriage();
+    if (triage == null) {
+      triage = Triage.analyze(organism.getProgram(), this);
+      organism.setTriage(triage);
+    }
+    return profile ? triage.handDependent() : triage;
+  }
+
 
   /**
    * Interprets and executions the instructions according to the opcodes provided
@@ -35,32 +220,193 @@ public final class Interpreter {
    * @return The best evaluation of the specified hand by the organism
    */
   public Result process(Hand hand, Organism organism) {
+    int result = evaluate(hand, organism);
+    return new Result(hand, organism, result);
+  }
+
+
+  /**
+   * Evaluates the hand in the same way as {@link #process(Hand, Organism)}, but
+   * returns the raw evaluation instead of wrapping it into a {@link Result}.
+   * Evaluations reuse a context that belongs to the calling thread and do not
+   * allocate.
+   *
+   * @return The best evaluation of the specified hand by the organism, or -1 if
+   *         there was none
+   */
+  public int evaluate(Hand hand, Organism organism) {
     Objects.requireNonNull(hand);
     Objects.requireNonNull(organism);
-    Inst inst = new Inst(hand, organism.getChromosome(), this);
-    int result = inst.process();
 
-    return new Result(hand, organism, result);
+    CompiledProgram compiled = profile ? null : organism.getCompiled();
+    if (compiled != null) {
+      return compiled.eval(hand);
+    }
+
+    Inst inst = context().reset(hand, organism.getProgram());
+    return inst.process();
+  }
+
+
+  /**
+   * Evaluates every hand of the table with the organism. Running one program
+   * over the whole table keeps it hot in the cache, instead of switching
+   * between organisms for every hand.
+   *
+   * @return The evaluation of every hand in the table, in table order
+   */
+  public int[] processBatch(Organism organism, HandTable table) {
+    int[] results = new int[table.size()];
+    processBatch(organism, table, results);
+    return results;
+  }
+
+
+  /**
+   * Evaluates every hand of the table with the organism, writing the
+   * evaluations into the results array in table order.
+   *
+   * @param results An array at least as long as the table
+   * @return The number of instructions executed, which is less than the sum
+   *         over all hands when some were memoized
+   */
+  public long processBatch(Organism organism, HandTable table, int[] results) {
+    Objects.requireNonNull(organism);
+    Objects.requireNonNull(table);
+    if (results.length < table.size()) {
+      throw new IllegalArgumentException("Results array is smaller than the table.");
+    }
+
+    int features = triage(organism).features;
+    if (memoCapacity > 0 && features != Projection.ALL && !profile) {
+      Projection projection = table.projection(features);
+      int classes = projection.size();
+      if (classes <= memoCapacity && classes <= table.size() / 2) {
+        int[] memo = memos.get();
+        if (memo.length < classes) {
+          memo = new int[classes];
+          memos.set(memo);
+        }
+
+        // Every class is evaluated once, with its first hand
+        long steps = evaluate(organism, projection.representatives, memo);
+        int[] map = projection.classes;
+        for (int i = 0, n = table.size(); i < n; i++) {
+          results[i] = memo[map[i]];
+        }
+        memoHits.add(table.size() - classes);
+        memoMisses.add(classes);
+        return steps;
+      }
+    }
+
+    memoMisses.add(table.size());
+    return evaluate(organism, table, results);
+  }
+
+
+  private long evaluate(Organism organism, HandTable table, int[] results) {
+    Program program = organism.getProgram();
+    CompiledProgram compiled = profile ? null : organism.getCompiled();
+    if (compiled == null && isVectorized()) {
+      return vectors.processBatch(program, table, results);
+    }
+
+    Inst inst = context();
+    long steps = 0;
+    for (int i = 0, n = table.size(); i < n; i++) {
+      inst.reset(table, i, program);
+      results[i] = compiled != null ? compiled.eval(inst) : inst.process();
+      steps += inst.steps;
+    }
+    return steps;
+  }
+
+
+  /**
+   * The number of hands whose evaluation by
+   * {@link #processBatch(Organism, HandTable, int[])} was taken from another
+   * hand that the organism cannot tell apart from it.
+   */
+  public long getMemoHits() {
+    return memoHits.sum();
+  }
+
+  /**
+   * The number of hands that were evaluated by
+   * {@link #processBatch(Organism, HandTable, int[])}.
+   */
+  public long getMemoMisses() {
+    return memoMisses.sum();
+  }
+
+
+  /**
+   * Adds up the profiles of all threads, and commits them as JDK Flight
+   * Recorder events of the generation. The profiles then start over. Must not
+   * be called while hands are being evaluated.
+   */
+  public void publishProfile(int generation) {
+    if (profile) {
+      collectProfile().commit(generation);
+    }
+  }
+
+  /**
+   * @return The sum of the profiles of all threads, which start over
+   */
+  Profile collectProfile() {
+    Profile total = new Profile();
+    for (Profile each : profiles) {
+      total.add(each);
+      each.clear();
+    }
+    return total;
+  }
+
+
+  /**
+   * @return The execution context of the calling thread
+   */
+  Inst context() {
+    return contexts.get();
+  }
+
+  private Inst newContext() {
+    if (!profile) {
+      return new Inst(this);
+    }
+    Profile each = new Profile();
+    profiles.add(each);
+    return new ProfilingInst(this, each);
   }
 
 
   /**
    * An inner private instance class that performs the work of the interpreter and
    * returns the value from the interpretation. This inner class is not thread
-   * safe, thus the parent class needs to create a new instance of this for every
-   * invocation.
+   * safe, thus the parent class keeps an instance for every thread and resets it
+   * with {@link #reset(Hand, Program)} for every invocation.
    */
   static class Inst {
     // Package protected for testing.
-    final ByteStack stack = new ByteStack();
+    final OperandStack stack;
 
-    private final Hand hand;
-    private final CharBuffer buf;
+    // The cards of the hand being evaluated are at [base, base + 5) of these
+    // arrays, which belong to either a Hand or a HandTable.
+    private byte[] ranks;
+    private byte[] suits;
+    private int base;
+
+    private Program program;
 
     // We keep a copy of the Interpreter to access its configuration state.
     // e.g. maxStack, maxDepth, etc.
     private final Interpreter interpreter;
 
+    // The position of the next nibble to be read from the program.
+    int pc = 0;
+
     // The return value is updated anytime the RET opcode is found. The RET code
     // will only update this if the newest interpretation is larger than this value.
     // Because multiple begin/end sequences can occur in the subject, the best
@@ -73,16 +419,83 @@ public final class Interpreter {
     // Nested loops are possible so we need to keep the depth in check.
     int depth = 0;
 
+    // The number of instructions executed by the evaluation, see #step().
+    int steps = 0;
+
+    // The bounds of the loop most recently entered by #enterLoop().
+    int loopLow;
+    int loopHigh;
+
     /**
      *
      * @param hand
      * @param subject
-     * @param maxDepth
+     * @param interpreter
      */
-    public Inst(Hand hand, String subject, Interpreter interpreter) {
-      this.hand = hand;
-      this.buf = CharBuffer.wrap(subject);
+    Inst(Hand hand, String subject, Interpreter interpreter) {
+      this(hand, Program.compile(subject), interpreter);
+    }
+
+    /**
+     *
+     * @param hand
+     * @param program
+     * @param interpreter
+     */
+    Inst(Hand hand, Program program, Interpreter interpreter) {
+      this(interpreter);
+      reset(hand, program);
+    }
+
+    /**
+     *
+     * @param interpreter
+     */
+    Inst(Interpreter interpreter) {
       this.interpreter = interpreter;
+      // PUSH stops once the size is over maxStack, so it can reach maxStack + 1
+      this.stack = new OperandStack(interpreter.maxStack + 1);
+    }
+
+    /**
+     * Prepares this instance for evaluating the program against the hand,
+     * clearing all state left from the previous evaluation.
+     *
+     * @param hand
+     * @param program
+     * @return This instance
+     */
+    Inst reset(Hand hand, Program program) {
+      if (hand != null) {
+        return reset(hand.ranks, hand.suits, 0, program);
+      }
+      return reset(null, null, 0, program);
+    }
+
+    /**
+     * Prepares this instance for evaluating the program against a hand of the
+     * table.
+     *
+     * @param table
+     * @param index The index of the hand in the table
+     * @param program
+     * @return This instance
+     */
+    Inst reset(HandTable table, int index, Program program) {
+      return reset(table.ranks, table.suits, index * HandTable.CARDS, program);
+    }
+
+    private Inst reset(byte[] ranks, byte[] suits, int base, Program program) {
+      this.ranks = ranks;
+      this.suits = suits;
+      this.base = base;
+      this.program = program;
+      this.stack.clear();
+      this.pc = 0;
+      this.returnValue = -1;
+      this.depth = 0;
+      this.steps = 0;
+      return this;
     }
 
     /**
@@ -92,9 +505,13 @@ public final class Interpreter {
     public int process() {
       // This main loop drives the overall processing. Other loops will
       // likely be called based on the opcodes consumed in this loop.
-      while (buf.hasRemaining()) {
-        // Execute instructions until we find an EOF
-        execUntil(OpCode.EOF);
+      try {
+        while (pc < program.length()) {
+          // Execute instructions until we find an EOF
+          execUntil(OpCode.EOF);
+        }
+      } catch (Halt e) {
+        // The evaluation ended early
       }
 
       return returnValue;
@@ -102,60 +519,46 @@ public final class Interpreter {
 
 
     /**
-     * Reads the next token from the buffer, returning its enum value and storing
-     * the full token into the {@link #tok} char array. The OpCode is effectively
-     * determined by using the two character array called the
-     * {@link OpCode#from(char[])} method to retrieve it. If the buffer has reached
-     * the end of stream, then EOF is returned.
+     * Counts an executed instruction against the budget of the evaluation.
      *
-     * @return The Code assoicated to the current char array token or EOF.
+     * @throws Halt If the budget has run out
      */
-    OpCode next() {
-      skipNoise();
-      if (buf.isEmpty()) {
-        return OpCode.EOF;
+    void step() {
+      if (steps == interpreter.maxSteps) {
+        throw Halt.INSTANCE;
       }
-      int tok = Character.digit(buf.get(), 16);
-      return OpCode.from(tok);
+      steps++;
     }
 
 
     /**
-     * Skips operations in the buffer until the specified OpCode is found. The
-     * operation specified will then be processed before exiting the method.
+     * Reads the next opcode from the program and advances past it. If the
+     * program has reached its end, then EOF is returned.
      *
-     * @param op The {@link OpCode} to seek to, which will then be executed after
-     *           being found.
+     * @return The OpCode at the current position or EOF.
      */
-    void seekTo(OpCode op) {
-      Objects.requireNonNull(op);
-      OpCode next = OpCode.EOF;
-      while (buf.hasRemaining()) {
-        next = next();
-        if (OpCode.EOF.equals(next)) {
-          return;
-        }
-        if (op.equals(next)) {
-          break;
-        }
-      }
-      if (op.equals(next)) {
-        process(next);
+    OpCode next() {
+      if (pc >= program.length()) {
+        return OpCode.EOF;
       }
+      return program.ops[pc++];
     }
 
 
     /**
-     * Executes operations from the buffer until the specified OpCode is found. The
-     * operation specified will be processed before returning.
+     * Executes operations from the program until the specified OpCode is found.
+     * The operation specified will be processed before returning.
      *
      * @param op The {@link OpCode} that will halt current execution
      */
     void execUntil(OpCode op) {
       Objects.requireNonNull(op);
 
-      while (buf.hasRemaining()) {
+      while (pc < program.length()) {
         OpCode next = next();
+        if (next != OpCode.UNK) {
+          step();
+        }
         process(next);
         if (op.equals(next)) {
           break;
@@ -164,26 +567,6 @@ public final class Interpreter {
     }
 
 
-    /**
-     * Skips characters in the stream that are invalid for the domain. Specifically
-     * skipping non-hexdigits, spaces, etc.
-     */
-    void skipNoise() {
-      while (buf.hasRemaining()) {
-        // Peek at the current character and check if its in the valid range.
-        char c = buf.get(buf.position());
-        if (c >= '0' && c <= '9') {
-          break;
-        }
-        if (c >= 'A' && c <= 'F') {
-          break;
-        }
-        // Consume the invalid character.
-        buf.get();
-      }
-    }
-
-
     /**
      * Processes the specified operation, effectively delegating to methods
      * dedicated to each opcode.
@@ -247,27 +630,25 @@ public final class Interpreter {
      *
      */
     void push() {
-      if (stack.size() > interpreter.maxStack) {
-        return;
+      if (pc < program.length() && push(program.codes[pc])) {
+        pc++;
       }
+    }
 
-      skipNoise();
-      if (buf.isEmpty()) {
-        return;
-      }
-
-      // Get the next character from the buffer. This is the
-      // value we place on the stack.
-      char ch = buf.get();
-
-      // Convert the hexdigit char to a byte
-      // Returns -1 for values outside of the hex radix of 16.
-      int val = Character.digit(ch, 16);
-      if (val < 0) {
-        return;
+    /**
+     * Pushes the operand of a PUSH onto the stack, unless the stack is already
+     * over its maximum size.
+     *
+     * @param val The operand of the PUSH
+     * @return True if the operand was consumed
+     */
+    boolean push(int val) {
+      if (stack.size() > interpreter.maxStack) {
+        return false;
       }
 
       stack.push((byte) val);
+      return true;
     }
 
     /**
@@ -363,19 +744,35 @@ public final class Interpreter {
      *
      */
     void ifop() {
-      if (stack.isEmpty()) {
+      int test = test();
+      if (test < 0) {
         return;
       }
 
-      // Evaluate the value at top of the stack.
-      // Zero = false, Non-zero = true
-      boolean eval = stack.pop() != 0;
-
-      if (eval) {
+      if (test > 0) {
         execUntil(OpCode.ENDIF);
       } else {
-        seekTo(OpCode.ENDIF);
+        // Skip past the next ENDIF. The IF we are processing sits just
+        // before the current position.
+        pc = program.jumps[pc - 1];
+      }
+    }
+
+
+    /**
+     * Pops and evaluates the condition of an IF.
+     *
+     * @return -1 if the stack is empty, 0 if the condition is false, or 1 if the
+     *         condition is true
+     */
+    int test() {
+      if (stack.isEmpty()) {
+        return -1;
       }
+
+      // Evaluate the value at top of the stack.
+      // Zero = false, Non-zero = true
+      return stack.pop() != 0 ? 1 : 0;
     }
 
 
@@ -414,6 +811,10 @@ public final class Interpreter {
         returnValue = ret;
       }
 
+      // Nothing can be returned above 9, so there is no point in going on
+      if (returnValue == 9) {
+        throw Halt.INSTANCE;
+      }
     }
 
 
@@ -421,6 +822,18 @@ public final class Interpreter {
      *
      */
     void read() {
+      if (pc < program.length() && read(program.codes[pc])) {
+        pc++;
+      }
+    }
+
+    /**
+     * Performs a READ with the specified operand.
+     *
+     * @param param The operand of the READ
+     * @return True if the operand was consumed
+     */
+    boolean read(int param) {
       // Reads either the suit or rank of the specified card index and pushes
       // the value to the stack. The card index is taken from the stack. Whether we
       // are reading the suit or rank depends on the second nibble in the byte.
@@ -428,26 +841,19 @@ public final class Interpreter {
 
       // Check if the stack is empty.
       if (stack.isEmpty()) {
-        return;
-      }
-
-      skipNoise();
-      if (buf.isEmpty()) {
-        return;
+        return false;
       }
 
       // Read the index from the stack. We only have 5 cards, so we perform
       // mod 5 on this to get the index.
       int idx = stack.pop() % 5;
       if (idx < 0 || idx > 5) {
-        return;
+        return false;
       }
 
       // Param: 2nd nibble of Token mod 2
       // Evens = Rank
       // Odds = Suit
-      int param = Character.digit(buf.get(), 16);
-
       // If the param is even, read the rank of the card.
       // Otherwise, read the suit.
       boolean rank = param % 2 == 0;
@@ -456,15 +862,16 @@ public final class Interpreter {
       int value;
       if (rank) {
         // Read the rank
-        value = hand.get(idx).getRank();
+        value = ranks[base + idx];
 
       } else {
         // Read the suit
-        value = hand.get(idx).getSuit();
+        value = suits[base + idx];
       }
 
       // Push the read value (rank or suit) back onto the stack.
       stack.push((byte) value);
+      return true;
     }
 
 
@@ -472,16 +879,22 @@ public final class Interpreter {
      *
      */
     void count() {
-      if (stack.isEmpty()) {
-        return;
+      if (pc < program.length() && count(program.codes[pc])) {
+        pc++;
       }
+    }
 
-      skipNoise();
-      if (buf.isEmpty()) {
-        return;
+    /**
+     * Performs a CNT with the specified operand.
+     *
+     * @param param The operand of the CNT
+     * @return True if the operand was consumed
+     */
+    boolean count(int param) {
+      if (stack.isEmpty()) {
+        return false;
       }
 
-      int param = Character.digit(buf.get(), 16);
       boolean rank = param % 2 == 0;
 
       int count = 0;
@@ -490,11 +903,11 @@ public final class Interpreter {
         // Counts the rank in the range of 1..13
         int val = stack.pop();
         if (val < 1 || val > 13) {
-          return;
+          return true;
         }
 
-        for (Card card : hand) {
-          if (card.getRank() == val) {
+        for (int i = base; i < base + HandTable.CARDS; i++) {
+          if (ranks[i] == val) {
             count++;
           }
         }
@@ -507,11 +920,11 @@ public final class Interpreter {
         val %= 4;
         val += 1;
         if (val < 1 || val > 4) {
-          return;
+          return true;
         }
 
-        for (Card card : hand) {
-          if (card.getSuit() == val) {
+        for (int i = base; i < base + HandTable.CARDS; i++) {
+          if (suits[i] == val) {
             count++;
           }
         }
@@ -519,6 +932,7 @@ public final class Interpreter {
 
       // Store the count to the stack
       stack.push((byte) count);
+      return true;
     }
 
 
@@ -526,14 +940,45 @@ public final class Interpreter {
      *
      */
     void loop() {
+      if (!enterLoop()) {
+        return;
+      }
+
+      int low = loopLow;
+      int high = loopHigh;
+
+      // We need to record our current position in the program so we can
+      // return for execution at the top of each loop.
+      int pos = pc;
+
+      // Execute a for loop with the high and low values.
+      // The iterative value of the loop will be placed on the stack.
+      // We reset our position in the program after every loop iteration.
+      for (int i = low; i <= high; i++) {
+        stack.push((byte) i);
+        execUntil(OpCode.ENDLOOP);
+        pc = pos;
+      }
+
+    }
+
+
+    /**
+     * Pops the bounds of a LOOP and checks whether the loop should execute. When
+     * it should, the depth is increased and the bounds are left in
+     * {@link #loopLow} and {@link #loopHigh} for the caller to iterate over.
+     *
+     * @return True if the loop body should be executed
+     */
+    boolean enterLoop() {
       // Avoid deeply nested loops
       if (depth >= interpreter.maxDepth) {
-        return;
+        return false;
       }
 
       // We need to take two values from the stack. Ensure they are available.
       if (stack.size() < 2) {
-        return;
+        return false;
       }
 
       // The two values are our low and high loop values
@@ -542,25 +987,15 @@ public final class Interpreter {
 
       // Don't execute if high is out of range or low is larger.
       if (high > 13 || low >= high) {
-        return;
+        return false;
       }
 
       // Increase our depth counter
       depth++;
 
-      // We need to record our current position in the buffer so we can
-      // return for execution at the top of each loop.
-      int pos = buf.position();
-
-      // Execute a for loop with the high and low values.
-      // The iterative value of the loop will be placed on the stack.
-      // We reset our position in the buffer after every loop iteration.
-      for (int i = low; i <= high; i++) {
-        stack.push((byte) i);
-        execUntil(OpCode.ENDLOOP);
-        buf.position(pos);
-      }
-
+      loopLow = low;
+      loopHigh = high;
+      return true;
     }
 
 
@@ -574,4 +1009,67 @@ public final class Interpreter {
     }
 
   }
+
+
+  /**
+   * An execution context that counts into a {@link Profile} as it executes.
+   * Only created while profiling, so that {@link Inst} is the only class of
+   * context the JIT ever sees otherwise.
+   */
+  static final class ProfilingInst extends Inst {
+    private final Profile profile;
+
+    ProfilingInst(Interpreter interpreter, Profile profile) {
+      super(interpreter);
+      this.profile = profile;
+    }
+
+    @Override
+    void process(OpCode code) {
+      profile.executions[code.ordinal()]++;
+      if (code == OpCode.RET && !stack.isEmpty() && stack.peek() >= 0 && stack.peek() <= 9) {
+        profile.returns++;
+      }
+      super.process(code);
+      profile.maxStack = Math.max(profile.maxStack, stack.size());
+    }
+
+    @Override
+    int test() {
+      int test = super.test();
+      if (test > 0) {
+        profile.ifTaken++;
+      } else if (test == 0) {
+        profile.ifNotTaken++;
+      }
+      return test;
+    }
+
+    @Override
+    boolean enterLoop() {
+      if (!super.enterLoop()) {
+        return false;
+      }
+      profile.loopIterations += loopHigh - loopLow + 1;
+      return true;
+    }
+  }
+
+
+  /**
+   * Ends an evaluation early, either because it has run out of steps or
+   * because it can no longer improve its return value. Thrown from deep within
+   * nested IFs and LOOPs of interpreted and compiled programs alike, and caught
+   * where the evaluation started. The single instance has no stack trace, so
+   * throwing it is cheap.
+   */
+  static final class Halt extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    static final Halt INSTANCE = new Halt();
+
+    private Halt() {
+      super(null, null, false, false);
+    }
+  }
 }
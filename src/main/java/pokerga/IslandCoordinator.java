@@ -0,0 +1,207 @@
+package pokerga;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The {@link Engine} of a process that coordinates island processes on the same
+ * host, each running an {@link IslandEngine} with the port of the coordinator.
+ * The coordinator waits for every island process to connect, then relays the
+ * migrants of every process to the next in a ring, and finally prints the best
+ * organisms of all processes.
+ * <p>
+ * Every island process has a heap of its own, so the populations of all
+ * processes together may be far larger than a single process could hold.
+ * Connections are only accepted on the loopback interface.
+ */
+public final class IslandCoordinator implements Engine {
+
+  private int port = 7654;
+  private int processes = 2;
+  private int count = 20;
+
+  // The final populations of the island processes, the best first
+  private final List<ScoredResult> results = new ArrayList<>();
+
+  /**
+   * The port to listen on, zero for any free port.
+   *
+   * @param port
+   */
+  public void setPort(int port) {
+    if (port < 0 || port > 65535) {
+      throw new IllegalArgumentException("Port must be between 0 and 65535.");
+    }
+    this.port = port;
+  }
+
+  /**
+   * The number of island processes to wait for.
+   *
+   * @param processes
+   */
+  public void setProcesses(int processes) {
+    if (processes < 1) {
+      throw new IllegalArgumentException("Processes must be positive.");
+    }
+    this.processes = processes;
+  }
+
+  /**
+   * The number of the best organisms to print.
+   *
+   * @param count
+   */
+  public void setCount(int count) {
+    this.count = count;
+  }
+
+  @Override
+  public void evaluate() throws IOException {
+    try (ServerSocket server = new ServerSocket(port, processes, InetAddress.getLoopbackAddress())) {
+      evaluate(server);
+    }
+
+    System.out.println("Results:");
+    for (ScoredResult score : results.subList(0, Math.min(count, results.size()))) {
+      System.out.println(score);
+    }
+  }
+
+  /**
+   * Coordinates the island processes that connect to the server.
+   */
+  void evaluate(ServerSocket server) throws IOException {
+    System.out.println("Waiting for " + processes + " island processes on port " + server.getLocalPort() + ".");
+    List<Connection> connections = new ArrayList<>();
+    try {
+      for (int i = 0; i < processes; i++) {
+        connections.add(new Connection(i, server.accept()));
+        System.out.println("Island process " + (i + 1) + " connected.");
+      }
+      for (Connection connection : connections) {
+        connection.next = connections.get((connection.index + 1) % processes);
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(processes);
+      try {
+        List<Future<List<ScoredResult>>> futures = new ArrayList<>();
+        for (Connection connection : connections) {
+          futures.add(executor.submit(connection::relay));
+        }
+        synchronized (results) {
+          results.clear();
+          for (Future<List<ScoredResult>> future : futures) {
+            results.addAll(future.get());
+          }
+          Collections.sort(results);
+        }
+
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+
+      } finally {
+        executor.shutdownNow();
+      }
+
+    } finally {
+      for (Connection connection : connections) {
+        connection.close();
+      }
+    }
+  }
+
+  /**
+   * @return The final populations of all island processes, the best first
+   */
+  public List<ScoredResult> getResults() {
+    synchronized (results) {
+      return new ArrayList<>(results);
+    }
+  }
+
+
+  /**
+   * The connection of an island process.
+   */
+  private static final class Connection {
+    private final int index;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private Connection next;
+
+    // Set once the process has sent its results, migrants are no longer relayed
+    private boolean finished = false;
+
+    Connection(int index, Socket socket) throws IOException {
+      this.index = index;
+      this.socket = socket;
+      socket.setTcpNoDelay(true);
+      this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Relays the migrants of the process to the next process, until the process
+     * sends its results.
+     */
+    List<ScoredResult> relay() {
+      try {
+        while (true) {
+          byte type = in.readByte();
+          List<ScoredResult> scores = Migration.read(in);
+          if (type == Migration.RESULTS) {
+            return scores;
+          }
+          next.send(scores);
+        }
+      } catch (IOException e) {
+        // A process that crashed usually resets the connection instead of
+        // closing it, either way the results of the others still count
+        System.out.println("Island process " + (index + 1) + " disconnected without results: " + e);
+        return List.of();
+      } finally {
+        close();
+      }
+    }
+
+    private synchronized void send(List<ScoredResult> migrants) {
+      if (finished) {
+        return;
+      }
+      try {
+        Migration.write(out, Migration.MIGRANTS, migrants);
+      } catch (IOException e) {
+        finished = true;
+      }
+    }
+
+    synchronized void close() {
+      finished = true;
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // Closing anyway
+      }
+    }
+  }
+
+}
@@ -0,0 +1,349 @@
+package pokerga;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.InitializingBean;
+import pokerga.AggregatedResults.AggregatedResult;
+import pokerga.init.InitialPopulation;
+import pokerga.op.Operator;
+import pokerga.score.Scorer;
+
+/**
+ * An {@link Engine} that evolves several independent populations, the islands,
+ * each on a thread of its own and bred by an {@link Operator} of its own. Every
+ * few generations, the best organisms of an island migrate to the next island
+ * in a ring, along with their scores.
+ * <p>
+ * Migrants are posted to a lock-free mailbox, which the receiving island empties
+ * whenever it next breeds, so no island ever waits for another. A slow island
+ * only receives its migrants later.
+ * <p>
+ * Given the port of an {@link IslandCoordinator}, the islands of this process
+ * are one segment of a ring across several processes: the last island sends
+ * its migrants to the next process, and the first island receives those of
+ * the previous process.
+ */
+public final class IslandEngine implements Engine, InitializingBean {
+
+  private HandReader handReader;
+  private InitialPopulation initialPopulation;
+  private Interpreter interpreter;
+  private Scorer scorer;
+  private List<Operator> operators;
+  private int generations = 10;
+  private int migrationInterval = 5;
+  private int migrants = 2;
+  private int fitnessCacheSize = 1024;
+  private int coordinatorPort = 0;
+  private long coordinatorTimeout = 60000;
+
+  public void setHandReader(HandReader handReader) {
+    this.handReader = handReader;
+  }
+
+  public void setInitialPopulation(InitialPopulation initialPopulation) {
+    this.initialPopulation = initialPopulation;
+  }
+
+  public void setInterpreter(Interpreter interpreter) {
+    this.interpreter = interpreter;
+  }
+
+  public void setScorer(Scorer scorer) {
+    this.scorer = scorer;
+  }
+
+  /**
+   * The operators of the islands, one island for every operator. The operators
+   * must be distinct instances, as every island breeds on a thread of its own.
+   *
+   * @param operators
+   */
+  public void setOperators(List<Operator> operators) {
+    this.operators = operators;
+  }
+
+  public void setGenerations(int generations) {
+    this.generations = generations;
+  }
+
+  /**
+   * The number of generations between migrations.
+   *
+   * @param migrationInterval
+   */
+  public void setMigrationInterval(int migrationInterval) {
+    if (migrationInterval < 1) {
+      throw new IllegalArgumentException("Migration interval must be positive.");
+    }
+    this.migrationInterval = migrationInterval;
+  }
+
+  /**
+   * The number of the best organisms of an island that migrate to the next
+   * island, replacing its worst organisms.
+   *
+   * @param migrants
+   */
+  public void setMigrants(int migrants) {
+    if (migrants < 0) {
+      throw new IllegalArgumentException("Migrants must not be negative.");
+    }
+    this.migrants = migrants;
+  }
+
+  /**
+   * The number of results every island keeps for the organisms of its earlier
+   * generations, see {@link FitnessCache}.
+   *
+   * @param fitnessCacheSize
+   */
+  public void setFitnessCacheSize(int fitnessCacheSize) {
+    if (fitnessCacheSize < 0) {
+      throw new IllegalArgumentException("Fitness cache size must not be negative.");
+    }
+    this.fitnessCacheSize = fitnessCacheSize;
+  }
+
+  /**
+   * The port of the {@link IslandCoordinator} on the loopback interface, zero
+   * for a run of this process alone.
+   *
+   * @param coordinatorPort
+   */
+  public void setCoordinatorPort(int coordinatorPort) {
+    if (coordinatorPort < 0 || coordinatorPort > 65535) {
+      throw new IllegalArgumentException("Coordinator port must be between 0 and 65535.");
+    }
+    this.coordinatorPort = coordinatorPort;
+  }
+
+  /**
+   * The milliseconds to wait for the coordinator to listen.
+   *
+   * @param coordinatorTimeout
+   */
+  public void setCoordinatorTimeout(long coordinatorTimeout) {
+    this.coordinatorTimeout = coordinatorTimeout;
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    Objects.requireNonNull(handReader);
+    Objects.requireNonNull(initialPopulation);
+    Objects.requireNonNull(interpreter);
+    Objects.requireNonNull(scorer);
+    Objects.requireNonNull(operators);
+    if (operators.isEmpty()) {
+      throw new IllegalArgumentException("Operator list was empty.");
+    }
+    if (generations < 1) {
+      throw new IllegalArgumentException("Generations must be positive.");
+    }
+    if (new HashSet<>(operators).size() < operators.size()) {
+      throw new IllegalArgumentException("Every island needs an operator of its own.");
+    }
+  }
+
+  @Override
+  public void evaluate() throws IOException {
+
+    System.out.println();
+    System.out.println("-------------------------------------------------------");
+    System.out.println();
+    System.out.println("                 Islands: " + operators.size());
+    System.out.println("         Population size: " + initialPopulation.getPopulationSize());
+    System.out.println("             Generations: " + generations);
+    System.out.println("      Migration interval: " + migrationInterval);
+    System.out.println("                Migrants: " + migrants);
+    System.out.println("         Number of hands: " + handReader.getMaxHands());
+    System.out.println();
+    System.out.println("-------------------------------------------------------");
+    System.out.println();
+
+    System.out.println("Loading the hands.");
+    HandTable table = handReader.load().getTable();
+
+    List<Island> islands = new ArrayList<>();
+    for (int i = 0; i < operators.size(); i++) {
+      islands.add(new Island(i, operators.get(i), table));
+    }
+    for (int i = 0; i < islands.size() - 1; i++) {
+      islands.get(i).emigrate = islands.get(i + 1).mailbox::addAll;
+    }
+
+    List<ScoredResult> results;
+    if (coordinatorPort == 0) {
+      if (islands.size() > 1) {
+        islands.get(islands.size() - 1).emigrate = islands.get(0).mailbox::addAll;
+      }
+      results = evolve(islands);
+    } else {
+      System.out.println("Connecting to the coordinator on port " + coordinatorPort + ".");
+      try (MigrationLink link = MigrationLink.connect(coordinatorPort, coordinatorTimeout,
+          islands.get(0).mailbox::addAll)) {
+        islands.get(islands.size() - 1).emigrate = link::send;
+        results = evolve(islands);
+        link.finish(results);
+      }
+    }
+
+    // Print out the scores of the final populations of all islands
+    System.out.println("Results:");
+    for (ScoredResult score : results) {
+      System.out.println(score);
+    }
+  }
+
+  /**
+   * Evolves every island on a thread of its own.
+   *
+   * @return The scores of the final populations of all islands, the best first
+   */
+  private List<ScoredResult> evolve(List<Island> islands) {
+    ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+    List<ScoredResult> results = new ArrayList<>();
+    try {
+      List<Future<List<ScoredResult>>> futures = new ArrayList<>();
+      for (Island island : islands) {
+        futures.add(executor.submit(island::evolve));
+      }
+      for (Future<List<ScoredResult>> future : futures) {
+        results.addAll(future.get());
+      }
+
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Collections.sort(results);
+    return results;
+  }
+
+
+  /**
+   * A population evolved by a single thread.
+   */
+  private final class Island {
+    private final int index;
+    private final Operator operator;
+    private final HandTable table;
+    private final int[] totals;
+
+    // The migrants from the previous island, not yet bred
+    private final Queue<ScoredResult> mailbox = new ConcurrentLinkedQueue<>();
+
+    // Takes the migrants to the next island, if there is one
+    private Consumer<List<ScoredResult>> emigrate;
+
+    Island(int index, Operator operator, HandTable table) {
+      this.index = index;
+      this.operator = operator;
+      this.table = table;
+      this.totals = table.totals();
+    }
+
+    List<ScoredResult> evolve() {
+      Population population = initialPopulation.get();
+      FitnessCache cache = new FitnessCache(fitnessCacheSize);
+      int[] evaluations = new int[table.size()];
+      List<ScoredResult> scores = new ArrayList<>();
+
+      for (int i = 0; i < generations; i++) {
+        List<Organism> organisms = population.getOrganisms();
+        AggregatedResults aggregator = new AggregatedResults(organisms);
+
+        // Let the interpreter compile the organisms that keep surviving on
+        // this island
+        interpreter.promote(population, this);
+
+        // Organisms with the same canonical program return the same results, so
+        // only one of every group has to be evaluated
+        Map<Program, List<Organism>> groups = new LinkedHashMap<>();
+        for (Organism organism : organisms) {
+          groups.computeIfAbsent(organism.getProgram(), p -> new ArrayList<>()).add(organism);
+        }
+        for (Map.Entry<Program, List<Organism>> entry : groups.entrySet()) {
+          List<Organism> group = entry.getValue();
+          Organism organism = group.get(0);
+          AggregatedResult result = cache.get(entry.getKey());
+          if (result == null) {
+            evaluate(organism, aggregator, evaluations);
+            result = aggregator.getAggregatedResult(organism);
+            cache.put(entry.getKey(), result);
+            group = group.subList(1, group.size());
+          }
+          for (Organism member : group) {
+            aggregator.aggregate(member, result);
+          }
+        }
+
+        scores.clear();
+        for (AggregatedResult result : aggregator.getResults()) {
+          scores.add(scorer.score(result));
+        }
+        Collections.sort(scores);
+        System.out.println("Island " + (index + 1) + ", generation " + (population.getGeneration() + 1) + " / "
+            + generations + ", best score: " + scores.get(0).getScore());
+
+        if (i == generations - 1) {
+          break;
+        }
+
+        // Send the best organisms to the next island, and take in those sent to
+        // this island in place of the worst organisms
+        if (migrants > 0 && (i + 1) % migrationInterval == 0 && emigrate != null) {
+          emigrate.accept(new ArrayList<>(scores.subList(0, Math.min(migrants, scores.size()))));
+        }
+        List<ScoredResult> immigrants = new ArrayList<>();
+        for (ScoredResult migrant; (migrant = mailbox.poll()) != null;) {
+          immigrants.add(migrant);
+        }
+        List<ScoredResult> bred = new ArrayList<>(scores);
+        int replaced = Math.min(immigrants.size(), bred.size());
+        bred.subList(bred.size() - replaced, bred.size()).clear();
+        bred.addAll(immigrants);
+        Collections.sort(bred);
+
+        List<Organism> evolved = operator.get(Collections.unmodifiableList(bred));
+        population = new Population(population.getGeneration() + 1, evolved);
+      }
+
+      return scores;
+    }
+
+    /**
+     * Evaluates an organism against every hand. Organisms whose results do not
+     * depend on the hand are scored from the totals instead.
+     */
+    private void evaluate(Organism organism, AggregatedResults aggregator, int[] evaluations) {
+      Triage triage = interpreter.triage(organism);
+      if (!triage.isHandDependent()) {
+        aggregator.aggregate(organism, totals, triage.getValue());
+      } else {
+        aggregator.aggregate(organism, table, evaluations, interpreter.processBatch(organism, table, evaluations));
+      }
+    }
+  }
+
+}
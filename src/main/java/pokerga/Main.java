@@ -7,22 +7,30 @@ public final class Main {
 
   public static void main(String[] args) {
 
-    if (args.length < 1) {
-      System.err.println("Usage: java -jar pokerga <configuration file>");
+    // Resume the run of the configuration from its last checkpoint
+    boolean resume = args.length > 0 && args[0].equals("--resume");
+    if (args.length < (resume ? 2 : 1)) {
+      System.err.println("Usage: java -jar pokerga [--resume] <configuration file>");
       System.exit(1);
     }
 
     // Use 'file:' scheme for Spring config file locations
-    String configLocation = args[0];
+    String configLocation = args[resume ? 1 : 0];
     if (!configLocation.startsWith("file:")) {
       configLocation = "file:" + configLocation;
     }
 
     AbstractApplicationContext context = new FileSystemXmlApplicationContext(configLocation);
     try (context) {
-      // Find the Evaluator class in the application context and run it.
-      Evaluator evaluator = context.getBean(Evaluator.class);
-      evaluator.evaluate();
+      // Find the Engine in the application context and run it.
+      Engine engine = context.getBean(Engine.class);
+      if (!resume) {
+        engine.evaluate();
+      } else if (engine instanceof Evaluator evaluator) {
+        evaluator.resume();
+      } else {
+        throw new IllegalStateException("Only the generational engine can be resumed.");
+      }
 
     } catch (Exception e) {
       e.printStackTrace();
@@ -0,0 +1,119 @@
+package pokerga;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The messages exchanged between the island processes and the
+ * {@link IslandCoordinator}. Every message is a type followed by a list of
+ * scored organisms. The chromosome of an organism is packed two genes to a
+ * byte, followed by the counts of its results and its score. The noise of a
+ * chromosome, every character but the uppercase hexdigits, is not sent, as it
+ * compiles to nothing, see {@link Program}.
+ */
+final class Migration {
+
+  // The best organisms of an island, for the next island
+  static final byte MIGRANTS = 1;
+
+  // The final population of an island process
+  static final byte RESULTS = 2;
+
+  private static final int CLASSES = HandClasses.CLASSES;
+
+  private Migration() {
+  }
+
+  static void write(DataOutputStream out, byte type, List<ScoredResult> scores) throws IOException {
+    out.writeByte(type);
+    out.writeInt(scores.size());
+    for (ScoredResult score : scores) {
+      Organism organism = score.getOrganism();
+      out.writeUTF(organism.getName());
+      writeChromosome(out, organism.getChromosome());
+      for (int i = 0; i < CLASSES; i++) {
+        out.writeInt(score.getCorrect()[i]);
+        out.writeInt(score.getTotal()[i]);
+      }
+      out.writeDouble(score.getScore());
+      out.writeBoolean(score.isEstimated());
+    }
+    out.flush();
+  }
+
+  /**
+   * Reads the scored organisms of a message, after its type.
+   */
+  static List<ScoredResult> read(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    List<ScoredResult> scores = new ArrayList<>(count);
+    for (int n = 0; n < count; n++) {
+      String name = in.readUTF();
+      String chromosome = readChromosome(in);
+
+      int[] correct = new int[CLASSES];
+      int[] total = new int[CLASSES];
+      for (int i = 0; i < CLASSES; i++) {
+        correct[i] = in.readInt();
+        total[i] = in.readInt();
+      }
+      double score = in.readDouble();
+      boolean estimated = in.readBoolean();
+      scores.add(new ScoredResult(new Organism(name, chromosome), correct, total, score, estimated));
+    }
+    return scores;
+  }
+
+  /**
+   * Writes the number of genes of a chromosome, followed by the genes packed
+   * two to a byte.
+   */
+  static void writeChromosome(DataOutputStream out, String chromosome) throws IOException {
+    String genes = genes(chromosome);
+    out.writeInt(genes.length());
+    out.write(pack(genes));
+  }
+
+  static String readChromosome(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    byte[] packed = new byte[(length + 1) / 2];
+    in.readFully(packed);
+    return unpack(packed, length);
+  }
+
+  /**
+   * @return The chromosome without its noise
+   */
+  static String genes(String chromosome) {
+    StringBuilder sb = new StringBuilder(chromosome.length());
+    for (int i = 0; i < chromosome.length(); i++) {
+      char c = chromosome.charAt(i);
+      if (c >= '0' && c <= '9' || c >= 'A' && c <= 'F') {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  static byte[] pack(String genes) {
+    byte[] packed = new byte[(genes.length() + 1) / 2];
+    for (int i = 0; i < genes.length(); i++) {
+      char c = genes.charAt(i);
+      int gene = c <= '9' ? c - '0' : c - 'A' + 10;
+      packed[i / 2] |= (byte) (i % 2 == 0 ? gene << 4 : gene);
+    }
+    return packed;
+  }
+
+  static String unpack(byte[] packed, int length) {
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      int gene = i % 2 == 0 ? packed[i / 2] >> 4 & 0xF : packed[i / 2] & 0xF;
+      sb.append((char) (gene < 10 ? '0' + gene : 'A' + gene - 10));
+    }
+    return sb.toString();
+  }
+}
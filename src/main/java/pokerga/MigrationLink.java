@@ -0,0 +1,120 @@
+package pokerga;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The connection of an island process to the {@link IslandCoordinator} over
+ * the loopback interface. Migrants sent over the link are relayed to the next
+ * island process, and the migrants of the previous island process are passed
+ * to a consumer by a thread of the link.
+ * <p>
+ * The migrants may be sent by any number of threads.
+ */
+final class MigrationLink implements AutoCloseable {
+
+  private final Socket socket;
+  private final DataOutputStream out;
+  private final Thread receiver;
+
+  private MigrationLink(Socket socket, Consumer<List<ScoredResult>> immigrate) throws IOException {
+    this.socket = socket;
+    this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    this.receiver = new Thread(() -> receive(in, immigrate), "migration-link");
+    this.receiver.setDaemon(true);
+    this.receiver.start();
+  }
+
+  /**
+   * Connects to the coordinator, waiting for it to listen.
+   *
+   * @param port      The port of the coordinator on the loopback interface
+   * @param timeout   The milliseconds to wait for the coordinator
+   * @param immigrate Receives the migrants of the previous island process
+   */
+  static MigrationLink connect(int port, long timeout, Consumer<List<ScoredResult>> immigrate) throws IOException {
+    long deadline = System.currentTimeMillis() + timeout;
+    while (true) {
+      try {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        return new MigrationLink(socket, immigrate);
+      } catch (ConnectException e) {
+        if (System.currentTimeMillis() > deadline) {
+          throw e;
+        }
+      }
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+    }
+  }
+
+  private void receive(DataInputStream in, Consumer<List<ScoredResult>> immigrate) {
+    try {
+      while (true) {
+        byte type = in.readByte();
+        List<ScoredResult> scores = Migration.read(in);
+        if (type == Migration.MIGRANTS) {
+          immigrate.accept(scores);
+        }
+      }
+    } catch (EOFException e) {
+      // The coordinator has finished
+    } catch (IOException e) {
+      if (!socket.isClosed()) {
+        System.err.println("Migration link failed: " + e);
+      }
+    }
+  }
+
+  /**
+   * Sends migrants to the next island process.
+   */
+  void send(List<ScoredResult> migrants) {
+    try {
+      synchronized (out) {
+        Migration.write(out, Migration.MIGRANTS, migrants);
+      }
+    } catch (IOException e) {
+      // Losing migrants does not affect the evolution of this island
+      System.err.println("Migrants were not sent: " + e);
+    }
+  }
+
+  /**
+   * Sends the final population of this process to the coordinator, and waits
+   * for the coordinator to close the connection once it has been received.
+   */
+  void finish(List<ScoredResult> results) throws IOException {
+    synchronized (out) {
+      Migration.write(out, Migration.RESULTS, results);
+    }
+    socket.shutdownOutput();
+    try {
+      receiver.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+    receiver.interrupt();
+  }
+}
@@ -0,0 +1,60 @@
+package pokerga;
+
+/**
+ * The byte stack used by the {@link Interpreter}. The buffer is allocated once
+ * with room for the configured maximum stack size and is reused for every
+ * evaluation by calling {@link #clear()}.
+ * <p>
+ * Only PUSH respects the maximum stack size, DUP and LOOP push regardless. A
+ * program that keeps doing so inside a loop makes the buffer grow, which is
+ * the only time this class allocates after construction.
+ * <p>
+ * This class is not thread safe.
+ */
+final class OperandStack {
+
+  private byte[] buffer;
+  private int size;
+
+  OperandStack(int capacity) {
+    this.buffer = new byte[capacity];
+  }
+
+  void push(byte value) {
+    if (size == buffer.length) {
+      grow();
+    }
+    buffer[size++] = value;
+  }
+
+  byte pop() {
+    return buffer[--size];
+  }
+
+  byte peek() {
+    return buffer[size - 1];
+  }
+
+  void discard() {
+    size--;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  private void grow() {
+    byte[] larger = new byte[Math.max(16, buffer.length * 2)];
+    System.arraycopy(buffer, 0, larger, 0, size);
+    buffer = larger;
+  }
+
+}
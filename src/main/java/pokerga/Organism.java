@@ -6,10 +6,23 @@ public final class Organism {
 
   private final String name;
   private final String chromosome;
+  private final int hash;
+
+  // Compiled on first use and shared by every hand the organism evaluates.
+  // A race between threads at most compiles the same program twice.
+  private volatile Program program;
+
+  // Set by the Interpreter once the organism has lived long enough to be
+  // worth compiling to bytecode.
+  private volatile CompiledProgram compiled;
+
+  // Analyzed by the Interpreter on first use.
+  private volatile Triage triage;
 
   public Organism(String name, String chromosome) {
     this.name = name;
     this.chromosome = chromosome;
+    this.hash = Objects.hash(name, chromosome);
   }
 
   public String getName() {
@@ -20,6 +33,31 @@ public final class Organism {
     return chromosome;
   }
 
+  public Program getProgram() {
+    Program p = program;
+    if (p == null) {
+      p = Program.compile(chromosome).canonical();
+      program = p;
+    }
+    return p;
+  }
+
+  CompiledProgram getCompiled() {
+    return compiled;
+  }
+
+  void setCompiled(CompiledProgram compiled) {
+    this.compiled = compiled;
+  }
+
+  Triage getTriage() {
+    return triage;
+  }
+
+  void setTriage(Triage triage) {
+    this.triage = triage;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == this) {
@@ -34,7 +72,8 @@ public final class Organism {
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, chromosome);
+    // Cached, as organisms are map keys for every hand that is evaluated
+    return hash;
   }
 
   @Override
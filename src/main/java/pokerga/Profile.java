@@ -0,0 +1,136 @@
+package pokerga;
+
+import java.util.Arrays;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Counts what the {@link Interpreter} executes while profiling is enabled, see
+ * {@link Interpreter#setProfile(boolean)}. Every thread counts into its own
+ * profile, and the profiles of all threads are added up between generations
+ * and published as JDK Flight Recorder events.
+ * <p>
+ * This class is not thread safe.
+ */
+final class Profile {
+
+  // The executions of every opcode, indexed by ordinal
+  final long[] executions = new long[OpCode.values().length];
+
+  // IFs whose condition was true and false. An IF on an empty stack is neither.
+  long ifTaken;
+  long ifNotTaken;
+
+  // The iterations of every LOOP that was entered
+  long loopIterations;
+
+  // RETs of a value between 0 and 9
+  long returns;
+
+  // The largest size the stack reached
+  int maxStack;
+
+  void add(Profile other) {
+    for (int i = 0; i < executions.length; i++) {
+      executions[i] += other.executions[i];
+    }
+    ifTaken += other.ifTaken;
+    ifNotTaken += other.ifNotTaken;
+    loopIterations += other.loopIterations;
+    returns += other.returns;
+    maxStack = Math.max(maxStack, other.maxStack);
+  }
+
+  void clear() {
+    Arrays.fill(executions, 0);
+    ifTaken = 0;
+    ifNotTaken = 0;
+    loopIterations = 0;
+    returns = 0;
+    maxStack = 0;
+  }
+
+  /**
+   * Commits the events of this profile, if they are being recorded.
+   */
+  void commit(int generation) {
+    for (OpCode op : OpCode.values()) {
+      if (op == OpCode.EOF) {
+        continue;
+      }
+      OpCodeEvent event = new OpCodeEvent();
+      if (!event.shouldCommit()) {
+        break;
+      }
+      event.generation = generation;
+      event.opCode = op.name();
+      event.executions = executions[op.ordinal()];
+      event.commit();
+    }
+
+    ProfileEvent event = new ProfileEvent();
+    if (event.shouldCommit()) {
+      long instructions = 0;
+      for (long count : executions) {
+        instructions += count;
+      }
+      event.generation = generation;
+      event.instructions = instructions;
+      event.ifTaken = ifTaken;
+      event.ifNotTaken = ifNotTaken;
+      event.loopIterations = loopIterations;
+      event.returns = returns;
+      event.maxStack = maxStack;
+      event.commit();
+    }
+  }
+
+
+  @Name("pokerga.OpCode")
+  @Label("Opcode Executions")
+  @Category({ "Pokerga", "Interpreter" })
+  @Description("The number of times an opcode was executed in a generation")
+  @StackTrace(false)
+  static final class OpCodeEvent extends Event {
+    @Label("Generation")
+    int generation;
+
+    @Label("Opcode")
+    String opCode;
+
+    @Label("Executions")
+    long executions;
+  }
+
+  @Name("pokerga.InterpreterProfile")
+  @Label("Interpreter Profile")
+  @Category({ "Pokerga", "Interpreter" })
+  @Description("What the interpreter executed in a generation")
+  @StackTrace(false)
+  static final class ProfileEvent extends Event {
+    @Label("Generation")
+    int generation;
+
+    @Label("Instructions")
+    long instructions;
+
+    @Label("IFs Taken")
+    long ifTaken;
+
+    @Label("IFs Not Taken")
+    long ifNotTaken;
+
+    @Label("Loop Iterations")
+    long loopIterations;
+
+    @Label("Returns")
+    long returns;
+
+    @Label("Max Stack Size")
+    int maxStack;
+  }
+}
@@ -0,0 +1,189 @@
+package pokerga;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The decoded form of a chromosome. Compiling a chromosome removes the noise
+ * characters, converts every hexdigit into its nibble value and decodes the
+ * opcode at every position, so that the {@link Interpreter} never has to look
+ * at the original string again.
+ * <p>
+ * The interpreter can begin executing at any position of the chromosome. A
+ * false IF seeks to the next ENDIF digit even if that digit was meant as the
+ * operand of another instruction, and a PUSH with a full stack leaves its
+ * operand to be executed as an opcode. For that reason every position keeps
+ * its own decoded opcode, and operands are read from the nibble that follows
+ * the instruction.
+ * <p>
+ * Programs are equal when they have the same nibbles. Many chromosomes behave
+ * exactly alike, see {@link #canonical()}.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+public final class Program {
+
+  // FNV-1a, 64 bits
+  private static final long OFFSET_BASIS = 0xCBF29CE484222325L;
+  private static final long PRIME = 0x100000001B3L;
+
+  // The nibble value of every hexdigit in the chromosome, noise removed.
+  final byte[] codes;
+
+  // The opcode decoded from the nibble at the same position.
+  final OpCode[] ops;
+
+  // The position that execution resumes at when an IF at the same position
+  // evaluates to false. This is the position following the next ENDIF, or the
+  // end of the program if there is none.
+  final int[] jumps;
+
+  // A hash of the nibbles, see #fingerprint()
+  private final long fingerprint;
+
+  private Program(byte[] codes) {
+    int length = codes.length;
+    this.codes = codes;
+    this.ops = new OpCode[length];
+    this.jumps = new int[length];
+
+    for (int i = 0; i < length; i++) {
+      ops[i] = OpCode.from(codes[i]);
+    }
+
+    int endif = length;
+    for (int i = length - 1; i >= 0; i--) {
+      jumps[i] = endif;
+      if (ops[i] == OpCode.ENDIF) {
+        endif = i + 1;
+      }
+    }
+
+    long hash = OFFSET_BASIS;
+    for (byte code : codes) {
+      hash = (hash ^ code) * PRIME;
+    }
+    this.fingerprint = hash;
+  }
+
+  /**
+   * Compiles the chromosome into its decoded form. Characters that are not
+   * uppercase hexdigits are noise and are dropped.
+   *
+   * @param chromosome The chromosome to compile
+   * @return The compiled program
+   */
+  public static Program compile(String chromosome) {
+    Objects.requireNonNull(chromosome);
+    byte[] codes = new byte[chromosome.length()];
+    int length = 0;
+    for (int i = 0; i < chromosome.length(); i++) {
+      char c = chromosome.charAt(i);
+      if (c >= '0' && c <= '9') {
+        codes[length++] = (byte) (c - '0');
+      } else if (c >= 'A' && c <= 'F') {
+        codes[length++] = (byte) (c - 'A' + 10);
+      }
+    }
+    if (length < codes.length) {
+      byte[] trimmed = new byte[length];
+      System.arraycopy(codes, 0, trimmed, 0, length);
+      codes = trimmed;
+    }
+    return new Program(codes);
+  }
+
+  /**
+   * The number of positions in the program, which is the number of hexdigits
+   * in the chromosome.
+   *
+   * @return The length of the program
+   */
+  public int length() {
+    return codes.length;
+  }
+
+  /**
+   * A 64-bit hash of the nibbles of the program. Programs with different
+   * fingerprints are never equal.
+   *
+   * @return The fingerprint
+   */
+  public long fingerprint() {
+    return fingerprint;
+  }
+
+
+  /**
+   * The shortest program that returns the same evaluation for every hand,
+   * within the same budget of steps.
+   * <ul>
+   * <li>Unknown opcodes do nothing and are not counted as steps, so they are
+   * dropped unless they follow a PUSH, READ or CNT, whose operand they may
+   * be.</li>
+   * <li>Nothing after the final RET can change the evaluation once it has been
+   * passed. Unless a LOOP precedes it, execution only moves forward and the
+   * rest of the program is dropped. A program without any RET never returns
+   * and is empty.</li>
+   * </ul>
+   * Neither change moves an ENDIF past an IF, or an operand away from its
+   * instruction, so every IF still lands on the same instruction.
+   *
+   * @return The canonical program, which may be this one
+   */
+  public Program canonical() {
+    int end = 0;
+    boolean loop = false;
+    boolean loops = false;
+    for (int i = 0; i < codes.length; i++) {
+      if (ops[i] == OpCode.RET) {
+        end = i + 1;
+        loops = loop;
+      } else if (ops[i] == OpCode.LOOP) {
+        loop = true;
+      }
+    }
+    if (loops) {
+      // The LOOP may take execution back to the final RET
+      end = codes.length;
+    }
+
+    byte[] canonical = new byte[end];
+    int length = 0;
+    for (int i = 0; i < end; i++) {
+      if (ops[i] == OpCode.UNK && (length == 0 || !takesOperand(canonical[length - 1]))) {
+        continue;
+      }
+      canonical[length++] = codes[i];
+    }
+
+    if (length == codes.length) {
+      return this;
+    }
+    return new Program(Arrays.copyOf(canonical, length));
+  }
+
+  private static boolean takesOperand(byte code) {
+    OpCode op = OpCode.from(code);
+    return op == OpCode.PUSH || op == OpCode.READ || op == OpCode.CNT;
+  }
+
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Program)) {
+      return false;
+    }
+    Program other = (Program) obj;
+    return fingerprint == other.fingerprint && Arrays.equals(codes, other.codes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(fingerprint);
+  }
+
+}
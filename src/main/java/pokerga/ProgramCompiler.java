@@ -0,0 +1,255 @@
+package pokerga;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import pokerga.Interpreter.Inst;
+
+/**
+ * Translates a {@link Program} into a {@link CompiledProgram}. Every position of
+ * the program becomes a labelled block of bytecode that calls the matching
+ * {@link Inst} method with its operand inlined, and falls through to the next
+ * position. Operand skips and false IFs are direct jumps, only a true IF has to
+ * dispatch on the position it returns. Every block but those of unknown
+ * opcodes counts as a step against the budget of the evaluation, as the
+ * interpreter does.
+ * <p>
+ * The generated classes are hidden classes that are not strongly linked to
+ * their class loader, so they are unloaded once the compiled program is no
+ * longer referenced.
+ */
+final class ProgramCompiler {
+
+  // HotSpot will not JIT compile methods with more bytecode than this
+  // (-XX:HugeMethodLimit), so larger programs are better left interpreted.
+  static final int MAX_CODE_SIZE = 8000;
+
+  private static final Lookup lookup = MethodHandles.lookup();
+
+  private static final String NAME = "pokerga/GeneratedProgram";
+  private static final String BASE = Type.getInternalName(CompiledProgram.class);
+  private static final String INST = Type.getInternalName(Inst.class);
+
+  private static final String CONSTRUCTOR = Type.getMethodDescriptor(Type.VOID_TYPE,
+      Type.getType(Program.class), Type.getType(Interpreter.class));
+  private static final String RUN = Type.getMethodDescriptor(Type.INT_TYPE,
+      Type.getType(Inst.class), Type.INT_TYPE, Type.INT_TYPE);
+  private static final String IFOP = Type.getMethodDescriptor(Type.INT_TYPE,
+      Type.getType(Inst.class), Type.INT_TYPE);
+  private static final String LOOP = Type.getMethodDescriptor(Type.VOID_TYPE,
+      Type.getType(Inst.class), Type.INT_TYPE);
+
+  // Local variable slots of the run method
+  private static final int THIS = 0;
+  private static final int STATE = 1;
+  private static final int PC = 2;
+  private static final int UNTIL = 3;
+
+  private ProgramCompiler() {
+  }
+
+
+  /**
+   * Compiles the program into a hidden class.
+   *
+   * @param program     The program to compile
+   * @param interpreter The interpreter whose configuration the program runs with
+   * @return The compiled program, or null if the program is too large to
+   *         benefit from compilation
+   */
+  static CompiledProgram compile(Program program, Interpreter interpreter) {
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V17, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, NAME, null, BASE, null);
+
+    MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR, null, null);
+    init.visitCode();
+    init.visitVarInsn(Opcodes.ALOAD, 0);
+    init.visitVarInsn(Opcodes.ALOAD, 1);
+    init.visitVarInsn(Opcodes.ALOAD, 2);
+    init.visitMethodInsn(Opcodes.INVOKESPECIAL, BASE, "<init>", CONSTRUCTOR, false);
+    init.visitInsn(Opcodes.RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+
+    MethodVisitor mv = cw.visitMethod(Opcodes.ACC_FINAL, "run", RUN, null, null);
+    mv.visitCode();
+    Label end = new Emitter(program, mv).emit();
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+    cw.visitEnd();
+
+    if (end.getOffset() > MAX_CODE_SIZE) {
+      return null;
+    }
+
+    try {
+      Lookup hidden = lookup.defineHiddenClass(cw.toByteArray(), true);
+      MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(),
+          MethodType.methodType(void.class, Program.class, Interpreter.class));
+      return (CompiledProgram) constructor.invoke(program, interpreter);
+
+    } catch (RuntimeException | Error e) {
+      throw e;
+
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+
+  /**
+   * Writes the body of the run method for a single program.
+   */
+  private static final class Emitter {
+    private final Program program;
+    private final MethodVisitor mv;
+    private final Label[] labels;
+    private final Label dispatch = new Label();
+    private final Label end = new Label();
+
+    Emitter(Program program, MethodVisitor mv) {
+      this.program = program;
+      this.mv = mv;
+      this.labels = new Label[program.length()];
+      for (int i = 0; i < labels.length; i++) {
+        labels[i] = new Label();
+      }
+    }
+
+    /**
+     * @return The label of the final return, whose offset is the size of the
+     *         generated code
+     */
+    Label emit() {
+      int length = program.length();
+      if (length > 0) {
+        mv.visitLabel(dispatch);
+        mv.visitVarInsn(Opcodes.ILOAD, PC);
+        mv.visitTableSwitchInsn(0, length - 1, end, labels);
+
+        for (int pos = 0; pos < length; pos++) {
+          mv.visitLabel(labels[pos]);
+          if (program.ops[pos] != OpCode.UNK) {
+            call("step");
+          }
+          emit(pos);
+        }
+      }
+
+      mv.visitLabel(end);
+      push(length);
+      mv.visitInsn(Opcodes.IRETURN);
+      return end;
+    }
+
+    private void emit(int pos) {
+      switch (program.ops[pos]) {
+      case PUSH:
+        operand(pos, "push");
+        break;
+      case DUP:
+        call("dup");
+        break;
+      case DROP:
+        call("drop");
+        break;
+      case ADD:
+        call("add");
+        break;
+      case SUB:
+        call("sub");
+        break;
+      case CMP:
+        call("cmp");
+        break;
+      case NOT:
+        call("not");
+        break;
+      case IFOP:
+        mv.visitVarInsn(Opcodes.ALOAD, THIS);
+        mv.visitVarInsn(Opcodes.ALOAD, STATE);
+        push(pos);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE, "ifop", IFOP, false);
+        mv.visitVarInsn(Opcodes.ISTORE, PC);
+        mv.visitJumpInsn(Opcodes.GOTO, dispatch);
+        break;
+      case ENDIF:
+        until(pos, CompiledProgram.UNTIL_ENDIF);
+        break;
+      case RET:
+        call("ret");
+        break;
+      case READ:
+        operand(pos, "read");
+        break;
+      case CNT:
+        operand(pos, "count");
+        break;
+      case LOOP:
+        mv.visitVarInsn(Opcodes.ALOAD, THIS);
+        mv.visitVarInsn(Opcodes.ALOAD, STATE);
+        push(pos + 1);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE, "loop", LOOP, false);
+        break;
+      case ENDLOOP:
+        call("endloop");
+        until(pos, CompiledProgram.UNTIL_ENDLOOP);
+        break;
+      case UNK:
+        break;
+      default:
+        throw new AssertionError();
+      }
+    }
+
+    // Calls an Inst method without an operand
+    private void call(String name) {
+      mv.visitVarInsn(Opcodes.ALOAD, STATE);
+      mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, INST, name, "()V", false);
+    }
+
+    // Calls an Inst method with the following nibble as its operand. The
+    // operand is skipped if the method reports it was consumed. Without an
+    // operand these instructions do nothing at all.
+    private void operand(int pos, String name) {
+      if (pos + 1 >= program.length()) {
+        return;
+      }
+      mv.visitVarInsn(Opcodes.ALOAD, STATE);
+      push(program.codes[pos + 1]);
+      mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, INST, name, "(I)Z", false);
+      mv.visitJumpInsn(Opcodes.IFNE, label(pos + 2));
+    }
+
+    // Returns from the run method if execution is halted by this opcode
+    private void until(int pos, int ordinal) {
+      mv.visitVarInsn(Opcodes.ILOAD, UNTIL);
+      push(ordinal);
+      mv.visitJumpInsn(Opcodes.IF_ICMPNE, label(pos + 1));
+      push(pos + 1);
+      mv.visitInsn(Opcodes.IRETURN);
+    }
+
+    private Label label(int pos) {
+      return pos < labels.length ? labels[pos] : end;
+    }
+
+    private void push(int value) {
+      if (value >= -1 && value <= 5) {
+        mv.visitInsn(Opcodes.ICONST_0 + value);
+      } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+        mv.visitIntInsn(Opcodes.BIPUSH, value);
+      } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+        mv.visitIntInsn(Opcodes.SIPUSH, value);
+      } else {
+        mv.visitLdcInsn(value);
+      }
+    }
+  }
+}
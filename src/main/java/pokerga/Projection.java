@@ -0,0 +1,137 @@
+package pokerga;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+
+/**
+ * A partition of the hands of a {@link HandTable} by the features of a hand
+ * that a program can observe. Most programs only ever read ranks, or only
+ * count suits, and return the same evaluation for every hand that looks the
+ * same through those features. Such a program only has to be evaluated once
+ * for every class of the partition.
+ * <p>
+ * A program observes the hand through READ and CNT alone, and the parity of
+ * their operand decides between rank and suit. The {@link Triage} finds the
+ * features a program observes before the hand makes a difference to its path
+ * of execution. From there on, every READ or CNT nibble that might be executed
+ * is taken into account.
+ * <p>
+ * The cards of a {@link Hand} are sorted by rank, so reading the ranks reveals
+ * no more than counting them does. Suits are not sorted, counting them only
+ * reveals how many cards there are of each suit.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+final class Projection {
+
+  // The features of a hand a program can observe
+  static final int RANKS = 1;
+  static final int SUITS = 2;
+  static final int SUIT_COUNTS = 4;
+
+  // Nothing is gained from partitioning by every feature of the hand
+  static final int ALL = RANKS | SUITS;
+
+  // The class of every hand of the table
+  final int[] classes;
+
+  // The first hand of every class
+  final HandTable representatives;
+
+  private Projection(int[] classes, HandTable representatives) {
+    this.classes = classes;
+    this.representatives = representatives;
+  }
+
+  /**
+   * @return The number of classes
+   */
+  int size() {
+    return representatives.size();
+  }
+
+
+  /**
+   * Finds the features of a hand the instructions of the program from the
+   * specified position onwards can observe.
+   *
+   * @return A combination of {@link #RANKS}, {@link #SUITS} and
+   *         {@link #SUIT_COUNTS}
+   */
+  static int features(Program program, int from) {
+    int features = 0;
+    for (int i = from; i < program.length() - 1; i++) {
+      boolean rank = program.codes[i + 1] % 2 == 0;
+      if (program.ops[i] == OpCode.READ) {
+        features |= rank ? RANKS : SUITS;
+      } else if (program.ops[i] == OpCode.CNT) {
+        features |= rank ? RANKS : SUIT_COUNTS;
+      }
+    }
+    return features;
+  }
+
+  /**
+   * Drops the features that are implied by others, counting suits reveals
+   * nothing once they are read.
+   */
+  static int normalize(int features) {
+    if ((features & SUITS) != 0) {
+      features &= ~SUIT_COUNTS;
+    }
+    return features;
+  }
+
+
+  /**
+   * Partitions the hands of the table by the features.
+   */
+  static Projection of(HandTable table, int features) {
+    int size = table.size();
+    int[] classes = new int[size];
+    int[] firsts = new int[size];
+    int count = 0;
+
+    LongIntHashMap keys = new LongIntHashMap();
+    for (int i = 0; i < size; i++) {
+      long key = key(table, i, features);
+      int index = keys.indexOf(key);
+      if (keys.indexExists(index)) {
+        classes[i] = keys.indexGet(index);
+      } else {
+        keys.indexInsert(index, key, count);
+        firsts[count] = i;
+        classes[i] = count++;
+      }
+    }
+
+    return new Projection(classes, table.subset(firsts, count));
+  }
+
+
+  /**
+   * Packs the features of a hand of the table into a key. Ranks take 4 bits
+   * per card, suits 2 bits per card and suit counts 3 bits per suit.
+   */
+  static long key(HandTable table, int hand, int features) {
+    long key = 0;
+    if ((features & RANKS) != 0) {
+      for (int card = 0; card < HandTable.CARDS; card++) {
+        key = key << 4 | table.rank(hand, card);
+      }
+    }
+    if ((features & SUITS) != 0) {
+      for (int card = 0; card < HandTable.CARDS; card++) {
+        key = key << 2 | table.suit(hand, card) - 1;
+      }
+    }
+    if ((features & SUIT_COUNTS) != 0) {
+      // The number of cards of every suit, 3 bits each
+      long counts = 0;
+      for (int card = 0; card < HandTable.CARDS; card++) {
+        counts += 1L << 3 * (table.suit(hand, card) - 1);
+      }
+      key = key << 12 | counts;
+    }
+    return key;
+  }
+}
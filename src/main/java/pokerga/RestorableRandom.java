@@ -0,0 +1,50 @@
+package pokerga;
+
+import java.util.Random;
+
+/**
+ * A {@link Random} whose state can be saved and restored, so that a resumed
+ * run draws the same numbers as an uninterrupted one, see {@link Checkpoint}.
+ * It generates exactly the same numbers as a {@code Random} with the same
+ * seed.
+ */
+public final class RestorableRandom extends Random {
+
+  private static final long serialVersionUID = 1L;
+
+  // The linear congruential generator of Random
+  private static final long MULTIPLIER = 0x5DEECE66DL;
+  private static final long ADDEND = 0xBL;
+  private static final long MASK = (1L << 48) - 1;
+
+  // Set by Random's constructor through #setSeed(long)
+  private long state;
+
+  public RestorableRandom() {
+    super();
+  }
+
+  public RestorableRandom(long seed) {
+    super(seed);
+  }
+
+  @Override
+  public synchronized void setSeed(long seed) {
+    super.setSeed(seed);
+    state = (seed ^ MULTIPLIER) & MASK;
+  }
+
+  @Override
+  protected synchronized int next(int bits) {
+    state = (state * MULTIPLIER + ADDEND) & MASK;
+    return (int) (state >>> (48 - bits));
+  }
+
+  public synchronized long getState() {
+    return state;
+  }
+
+  public synchronized void setState(long state) {
+    this.state = state & MASK;
+  }
+}
@@ -8,12 +8,22 @@ public final class ScoredResult implements Comparable<ScoredResult> {
   private final int[] correct;
   private final int[] total;
   private final double score;
+  private final boolean estimated;
 
   public ScoredResult(Organism organism, int[] correct, int[] total, double score) {
+    this(organism, correct, total, score, false);
+  }
+
+  /**
+   * @param estimated True if the score is estimated from some of the hands, see
+   *                  {@link AggregatedResults.AggregatedResult#isEstimated()}
+   */
+  public ScoredResult(Organism organism, int[] correct, int[] total, double score, boolean estimated) {
     this.organism = organism;
     this.correct = correct;
     this.total = total;
     this.score = score;
+    this.estimated = estimated;
   }
 
   public Organism getOrganism() {
@@ -32,6 +42,10 @@ public final class ScoredResult implements Comparable<ScoredResult> {
     return score;
   }
 
+  public boolean isEstimated() {
+    return estimated;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == this) {
@@ -71,6 +85,9 @@ public final class ScoredResult implements Comparable<ScoredResult> {
     }
     sb.append("] score=");
     sb.append(score);
+    if (estimated) {
+      sb.append(" (estimated)");
+    }
 
     return sb.toString();
   }
@@ -0,0 +1,300 @@
+package pokerga;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.InitializingBean;
+import pokerga.AggregatedResults.AggregatedResult;
+import pokerga.init.InitialPopulation;
+import pokerga.init.OrganismFactory;
+import pokerga.op.Mutator;
+import pokerga.op.Selector;
+import pokerga.score.Scorer;
+
+/**
+ * A steady-state {@link Engine}, which evolves the population one offspring at
+ * a time instead of a generation at a time. Every worker thread breeds
+ * offspring from the current population with the {@link Selector} and the
+ * {@link Mutator}s, evaluates them against every hand, and inserts them into
+ * the population in the order of their scores, replacing its worst member.
+ * <p>
+ * There is no barrier between generations, so no worker waits for the slowest
+ * evaluation of a generation to finish before breeding again. Offspring with
+ * the same canonical program as a member of the population are not evaluated.
+ */
+public final class SteadyStateEngine implements Engine, InitializingBean {
+
+  // The best scores first, ties broken by name so that no member replaces
+  // another with the same score
+  private static final Comparator<ScoredResult> ORDER = Comparator.<ScoredResult>naturalOrder()
+      .thenComparing(score -> score.getOrganism().getName());
+
+  private HandReader handReader;
+  private InitialPopulation initialPopulation;
+  private Interpreter interpreter;
+  private Scorer scorer;
+  private Selector selector;
+  private List<Mutator> mutators;
+  private OrganismFactory factory;
+  private int offspring = 10000;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private ComputeScheduler scheduler = ComputeScheduler.getDefault();
+
+  // The members of the population, and their programs
+  private final ConcurrentSkipListSet<ScoredResult> members = new ConcurrentSkipListSet<>(ORDER);
+  private final Set<Program> programs = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger size = new AtomicInteger();
+
+  public void setHandReader(HandReader handReader) {
+    this.handReader = handReader;
+  }
+
+  public void setInitialPopulation(InitialPopulation initialPopulation) {
+    this.initialPopulation = initialPopulation;
+  }
+
+  public void setInterpreter(Interpreter interpreter) {
+    this.interpreter = interpreter;
+  }
+
+  public void setScorer(Scorer scorer) {
+    this.scorer = scorer;
+  }
+
+  /**
+   * Selects the parents of every brood from the population, for example a
+   * {@link pokerga.op.RandomSelector} of a few organisms.
+   *
+   * @param selector
+   */
+  public void setSelector(Selector selector) {
+    this.selector = selector;
+  }
+
+  /**
+   * Breed the offspring from the parents. Every chromosome they return is an
+   * offspring.
+   *
+   * @param mutators
+   */
+  public void setMutators(List<Mutator> mutators) {
+    this.mutators = mutators;
+  }
+
+  public void setFactory(OrganismFactory factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * The number of offspring to breed before the run ends, not counting the
+   * initial population.
+   *
+   * @param offspring
+   */
+  public void setOffspring(int offspring) {
+    if (offspring < 0) {
+      throw new IllegalArgumentException("Offspring must not be negative.");
+    }
+    this.offspring = offspring;
+  }
+
+  /**
+   * The number of workers, each breeding and evaluating an offspring at a
+   * time on a thread of the scheduler.
+   *
+   * @param threads
+   */
+  public void setThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive.");
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * The threads that run the workers.
+   *
+   * @param scheduler
+   */
+  public void setScheduler(ComputeScheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    Objects.requireNonNull(handReader);
+    Objects.requireNonNull(initialPopulation);
+    Objects.requireNonNull(interpreter);
+    Objects.requireNonNull(scorer);
+    Objects.requireNonNull(selector);
+    Objects.requireNonNull(mutators);
+    Objects.requireNonNull(factory);
+    Objects.requireNonNull(scheduler);
+    if (!selector.canMutate()) {
+      throw new IllegalArgumentException("Selector must allow its selections to be mutated.");
+    }
+    if (mutators.isEmpty()) {
+      throw new IllegalArgumentException("Mutator list was empty.");
+    }
+  }
+
+  @Override
+  public void evaluate() throws IOException {
+
+    System.out.println();
+    System.out.println("-------------------------------------------------------");
+    System.out.println();
+    System.out.println("         Population size: " + initialPopulation.getPopulationSize());
+    System.out.println("               Offspring: " + offspring);
+    System.out.println("                 Threads: " + threads);
+    System.out.println("         Number of hands: " + handReader.getMaxHands());
+    System.out.println();
+    System.out.println("-------------------------------------------------------");
+    System.out.println();
+
+    System.out.println("Initializing the population.");
+    List<Organism> initial = initialPopulation.get().getOrganisms();
+    System.out.println("Finished initializing the population.");
+
+    System.out.println("Loading the hands.");
+    HandTable table = handReader.load().getTable();
+
+    members.clear();
+    programs.clear();
+    size.set(0);
+    Run run = new Run(table, initial);
+
+    ComputeScheduler.Usage usage = scheduler.getUsage();
+    scheduler.run(threads, worker -> run.work());
+    System.out.println("Scheduler: " + scheduler.getUsage().since(usage));
+
+    if (run.duplicates.get() > 0) {
+      System.out.println("Duplicate offspring: " + run.duplicates.get());
+    }
+    System.out.println("Results:");
+    for (ScoredResult score : getResults()) {
+      System.out.println(score);
+    }
+  }
+
+  /**
+   * @return The scores of the members of the population, the best first
+   */
+  public List<ScoredResult> getResults() {
+    return new ArrayList<>(members);
+  }
+
+
+  /**
+   * The state of a run shared by the workers.
+   */
+  private final class Run {
+    private final HandTable table;
+    private final int[] totals;
+    private final List<Organism> initial;
+    private final int populationSize;
+
+    // Breeding waits for the initial population to be evaluated
+    private final CountDownLatch populated;
+
+    // The initial organisms and offspring taken by the workers
+    private final AtomicInteger taken = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+
+    Run(HandTable table, List<Organism> initial) {
+      this.table = table;
+      this.totals = table.totals();
+      this.initial = initial;
+      this.populationSize = initial.size();
+      this.populated = new CountDownLatch(initial.size());
+    }
+
+    void work() {
+      int[] evaluations = new int[table.size()];
+      Deque<Organism> brood = new ArrayDeque<>();
+
+      for (int next; (next = taken.getAndIncrement()) < initial.size() + offspring;) {
+        if (next < initial.size()) {
+          try {
+            insert(initial.get(next), evaluations);
+          } finally {
+            populated.countDown();
+          }
+          continue;
+        }
+
+        if (brood.isEmpty()) {
+          breed(brood);
+        }
+        insert(brood.poll(), evaluations);
+
+        int bred = next - initial.size() + 1;
+        if (bred % populationSize == 0) {
+          System.out.println("Offspring: " + bred + " / " + offspring + ", best score: "
+              + getResults().get(0).getScore());
+        }
+      }
+    }
+
+    private void breed(Deque<Organism> brood) {
+      try {
+        populated.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+
+      List<ScoredResult> scores = Collections.unmodifiableList(getResults());
+      List<Organism> parents = selector.select(scores);
+      for (Mutator mutator : mutators) {
+        for (String chromosome : mutator.mutate(parents)) {
+          brood.add(factory.create(chromosome));
+        }
+      }
+      if (brood.isEmpty()) {
+        throw new IllegalStateException("The mutators bred no offspring from " + parents.size() + " parents.");
+      }
+    }
+
+    /**
+     * Evaluates an organism and inserts it into the population, unless a member
+     * has the same program. Once the population is full, the worst member is
+     * replaced, which may be the organism itself.
+     */
+    private void insert(Organism organism, int[] evaluations) {
+      Program program = organism.getProgram();
+      if (!programs.add(program)) {
+        duplicates.incrementAndGet();
+        return;
+      }
+
+      AggregatedResults aggregator = new AggregatedResults();
+      Triage triage = interpreter.triage(organism);
+      if (!triage.isHandDependent()) {
+        aggregator.aggregate(organism, totals, triage.getValue());
+      } else {
+        long steps = interpreter.processBatch(organism, table, evaluations);
+        aggregator.aggregate(organism, table, evaluations, steps);
+      }
+      AggregatedResult result = aggregator.getAggregatedResult(organism);
+
+      members.add(scorer.score(result));
+      if (size.incrementAndGet() > populationSize) {
+        ScoredResult worst = members.pollLast();
+        size.decrementAndGet();
+        programs.remove(worst.getOrganism().getProgram());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+package pokerga;
+
+import com.carrotsearch.hppc.IntHashSet;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws a minibatch of hands every generation, with up to a fixed number of
+ * hands of every evaluation class. The {@link pokerga.score.StandardScorer}
+ * averages the accuracies of the classes, so the rare classes weigh as much as
+ * the common ones, and a sample with as many hands of every class scores the
+ * organisms nearly as well as every hand of the table, at a fraction of the
+ * cost.
+ * <p>
+ * The hands of a class are drawn uniformly among the hands of the table, and
+ * keep their weights. A class with fewer hands than its size is used whole.
+ * The sample of a generation depends only on the seed and the generation, so
+ * runs with the same seed evaluate the same hands.
+ */
+public final class StratifiedSampler {
+
+  private int size = 1000;
+  private int[] sizes = null;
+  private long seed = 0;
+
+  /**
+   * The number of hands drawn from every evaluation class.
+   *
+   * @param size
+   */
+  public void setSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Size must be positive.");
+    }
+    this.size = size;
+  }
+
+  /**
+   * The number of hands drawn from each evaluation class, overriding
+   * {@link #setSize(int)}. Classes may be left out of the sample with a size
+   * of zero.
+   *
+   * @param sizes The sizes indexed by evaluation class
+   */
+  public void setSizes(int[] sizes) {
+    if (sizes.length != HandClasses.CLASSES) {
+      throw new IllegalArgumentException("Sizes must be given for " + HandClasses.CLASSES + " classes.");
+    }
+    for (int s : sizes) {
+      if (s < 0) {
+        throw new IllegalArgumentException("Sizes must not be negative.");
+      }
+    }
+    this.sizes = sizes.clone();
+  }
+
+  /**
+   * The seed the samples of every generation are derived from.
+   *
+   * @param seed
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public int size(int evaluation) {
+    return sizes != null ? sizes[evaluation] : size;
+  }
+
+  /**
+   * Draws the hands of a generation.
+   *
+   * @return A table of the hands drawn, in the order of the table they are
+   *         drawn from
+   */
+  public HandTable sample(HandClasses classes, int generation) {
+    // Every generation draws from a split of the one before
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int i = 0; i <= generation; i++) {
+      random = random.split();
+    }
+
+    int total = 0;
+    for (int c = 0; c < HandClasses.CLASSES; c++) {
+      total += Math.min(size(c), classes.size(c));
+    }
+
+    int count = 0;
+    int[] hands = new int[total];
+    for (int c = 0; c < HandClasses.CLASSES; c++) {
+      int n = classes.size(c);
+      int k = Math.min(size(c), n);
+      if (k == n) {
+        for (int i = 0; i < n; i++) {
+          hands[count++] = classes.hand(c, i);
+        }
+        continue;
+      }
+
+      // Floyd's algorithm draws k distinct indexes in k steps
+      IntHashSet drawn = new IntHashSet(k);
+      for (int j = n - k; j < n; j++) {
+        int t = random.nextInt(j + 1);
+        if (!drawn.add(t)) {
+          drawn.add(j);
+          t = j;
+        }
+        hands[count++] = classes.hand(c, t);
+      }
+    }
+
+    Arrays.sort(hands, 0, count);
+    return classes.getTable().subset(hands, count);
+  }
+
+}
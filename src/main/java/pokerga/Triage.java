@@ -0,0 +1,442 @@
+package pokerga;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of analyzing a {@link Program} without a hand. Many random
+ * chromosomes never return a value, or return one that does not depend on the
+ * hand at all. Such organisms evaluate every hand to the same result, so they
+ * can be scored from the number of hands of every evaluation class without
+ * running them.
+ * <p>
+ * The analysis executes the program once, keeping the range of values that
+ * every slot of the stack can hold. A READ pushes the range of all ranks or
+ * suits, a CNT the range of all counts. If no range ever makes a difference to
+ * the path of execution or the return value, then every hand executes exactly
+ * the same instructions and the result is known. Either way, the analysis
+ * records which features of a hand the program can observe, which lets the
+ * {@link Interpreter} evaluate it once for all hands that share them, see
+ * {@link Projection}.
+ * <p>
+ * Instances are immutable and can be shared by any number of threads.
+ */
+public final class Triage {
+
+  public enum Kind {
+    /** The result is -1 for every hand. */
+    NEVER_RETURNS,
+    /** The result is the same value for every hand. */
+    CONSTANT,
+    /** The result depends on the hand, it has to be evaluated. */
+    HAND_DEPENDENT,
+  }
+
+  private final Kind kind;
+  private final int value;
+
+  // The features of a hand the program can observe, see Projection
+  final int features;
+
+  private Triage(Kind kind, int value, int features) {
+    this.kind = kind;
+    this.value = value;
+    this.features = features;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * @return The result of every hand, or -1 if the result depends on the hand
+   */
+  public int getValue() {
+    return value;
+  }
+
+  public boolean isHandDependent() {
+    return kind == Kind.HAND_DEPENDENT;
+  }
+
+  /**
+   * @return A triage of the same features that is hand dependent, for
+   *         organisms that have to be interpreted anyway
+   */
+  Triage handDependent() {
+    return isHandDependent() ? this : new Triage(Kind.HAND_DEPENDENT, -1, features);
+  }
+
+  @Override
+  public String toString() {
+    return kind == Kind.CONSTANT ? kind + "[" + value + "]" : kind.toString();
+  }
+
+
+  /**
+   * Analyzes the program as it would be executed by the interpreter.
+   *
+   * @param program     The program to analyze
+   * @param interpreter The interpreter whose configuration the program runs with
+   * @return The triage of the program
+   */
+  static Triage analyze(Program program, Interpreter interpreter) {
+    Analyzer analyzer = new Analyzer(program, interpreter);
+    analyzer.process();
+
+    // Everything from where the hand made a difference might be executed
+    int features = analyzer.features;
+    if (analyzer.dependent) {
+      features |= Projection.features(program, analyzer.resume);
+      return new Triage(Kind.HAND_DEPENDENT, -1, Projection.normalize(features));
+    }
+    if (analyzer.returnValue < 0) {
+      return new Triage(Kind.NEVER_RETURNS, -1, Projection.normalize(features));
+    }
+    return new Triage(Kind.CONSTANT, analyzer.returnValue, Projection.normalize(features));
+  }
+
+
+  /**
+   * Executes a program like {@link Interpreter.Inst}, keeping the range of
+   * values every slot of the stack can hold for any hand. Execution stops as
+   * soon as the hand could make a difference.
+   */
+  private static final class Analyzer {
+    private final Program program;
+    private final Interpreter interpreter;
+
+    // The lowest and highest value of every slot, equal if the value is known
+    private byte[] lows = new byte[16];
+    private byte[] highs = new byte[16];
+    private int size;
+
+    private int pc;
+    private int returnValue = -1;
+    private int depth;
+
+    // Set once the hand decides the path of execution or the result, along
+    // with the lowest position that execution might continue from.
+    private boolean dependent;
+    private int resume;
+
+    // Set once execution ends early, for any reason
+    private boolean stopped;
+    private int steps;
+
+    // The start of the body of the loop being executed, if any
+    private int loopStart = Integer.MAX_VALUE;
+
+    // The features of the hand read before the hand made a difference
+    private int features;
+
+    Analyzer(Program program, Interpreter interpreter) {
+      this.program = program;
+      this.interpreter = interpreter;
+    }
+
+    void process() {
+      while (pc < program.length() && !stopped) {
+        execUntil(OpCode.EOF);
+      }
+    }
+
+    private void execUntil(OpCode op) {
+      while (pc < program.length() && !stopped) {
+        OpCode next = program.ops[pc++];
+
+        // Every hand runs out of steps at the same instruction
+        if (next != OpCode.UNK) {
+          if (steps == interpreter.maxSteps()) {
+            stopped = true;
+            return;
+          }
+          steps++;
+        }
+        process(next);
+        if (op == next) {
+          break;
+        }
+      }
+    }
+
+    private void process(OpCode code) {
+      switch (code) {
+      case PUSH:
+        if (pc < program.length() && size <= interpreter.maxStack()) {
+          push(program.codes[pc], program.codes[pc]);
+          pc++;
+        }
+        break;
+      case DUP:
+        if (size > 0) {
+          push(lows[size - 1], highs[size - 1]);
+        }
+        break;
+      case DROP:
+        if (size > 0) {
+          size--;
+        }
+        break;
+      case ADD:
+        add();
+        break;
+      case SUB:
+        sub();
+        break;
+      case CMP:
+        cmp();
+        break;
+      case NOT:
+        not();
+        break;
+      case IFOP:
+        ifop();
+        break;
+      case RET:
+        ret();
+        break;
+      case READ:
+        if (pc < program.length() && read(program.codes[pc])) {
+          pc++;
+        }
+        break;
+      case CNT:
+        if (pc < program.length() && count(program.codes[pc])) {
+          pc++;
+        }
+        break;
+      case LOOP:
+        loop();
+        break;
+      case ENDLOOP:
+        if (depth > 0) {
+          depth--;
+        }
+        break;
+      case ENDIF:
+      case EOF:
+      case UNK:
+        break;
+      default:
+        throw new AssertionError();
+      }
+    }
+
+    private void depend() {
+      // The instruction sits just before the current position, and the body
+      // of a loop is executed again from its start.
+      dependent = true;
+      stopped = true;
+      resume = Math.min(pc - 1, loopStart);
+    }
+
+    private void add() {
+      if (size < 2) {
+        return;
+      }
+      int low1 = lows[--size];
+      int high1 = highs[size];
+      int low2 = lows[--size];
+      int high2 = highs[size];
+      wrap(low1 + low2, high1 + high2);
+    }
+
+    private void sub() {
+      if (size < 2) {
+        return;
+      }
+      int low1 = lows[--size];
+      int high1 = highs[size];
+      int low2 = lows[--size];
+      int high2 = highs[size];
+      wrap(low1 - high2, high1 - low2);
+    }
+
+    private void cmp() {
+      if (size < 2) {
+        return;
+      }
+      int low1 = lows[--size];
+      int high1 = highs[size];
+      int low2 = lows[--size];
+      int high2 = highs[size];
+      if (low1 == high1 && low2 == high2) {
+        push(low1 == low2 ? 1 : 0);
+      } else if (high1 < low2 || high2 < low1) {
+        push(0);
+      } else {
+        push(0, 1);
+      }
+    }
+
+    private void not() {
+      if (size == 0) {
+        return;
+      }
+      int low = lows[--size];
+      int high = highs[size];
+      if (low == 0 && high == 0) {
+        push(1);
+      } else if (low > 0 || high < 0) {
+        push(0);
+      } else {
+        push(0, 1);
+      }
+    }
+
+    private void ifop() {
+      if (size == 0) {
+        return;
+      }
+
+      int low = lows[--size];
+      int high = highs[size];
+      if (low > 0 || high < 0) {
+        execUntil(OpCode.ENDIF);
+      } else if (low == 0 && high == 0) {
+        pc = program.jumps[pc - 1];
+      } else {
+        depend();
+      }
+    }
+
+    private void ret() {
+      if (size == 0) {
+        return;
+      }
+
+      // Values outside of 0..9, or not above the current return value, are
+      // ignored. Anything else has to be the same for every hand.
+      int low = Math.max(lows[--size], returnValue + 1);
+      int high = Math.min(highs[size], 9);
+      if (low > high) {
+        return;
+      }
+      if (low != high || lows[size] != highs[size]) {
+        depend();
+        return;
+      }
+      returnValue = low;
+      if (returnValue == 9) {
+        stopped = true;
+      }
+    }
+
+    private boolean read(int param) {
+      if (size == 0) {
+        return false;
+      }
+
+      // Negative remainders are invalid indexes, they do not read anything.
+      // Whether there is a card to read has to be the same for every hand.
+      int low = lows[--size];
+      int high = highs[size];
+      if (low == high && low % 5 < 0) {
+        return false;
+      }
+      if (low <= -1 && high >= -4 || low < -5) {
+        depend();
+        return false;
+      }
+
+      if (param % 2 == 0) {
+        features |= Projection.RANKS;
+        push(1, 13);
+      } else {
+        features |= Projection.SUITS;
+        push(1, 4);
+      }
+      return true;
+    }
+
+    private boolean count(int param) {
+      if (size == 0) {
+        return false;
+      }
+
+      // Whether there is a count has to be the same for every hand
+      int low = lows[--size];
+      int high = highs[size];
+      boolean valid;
+      boolean invalid;
+      if (param % 2 == 0) {
+        valid = high >= 1 && low <= 13;
+        invalid = low < 1 || high > 13;
+      } else if (low == high) {
+        valid = (low - 1) % 4 >= 0;
+        invalid = !valid;
+      } else {
+        // Values of 0 or less are only valid one above a multiple of 4
+        valid = high >= 1 || low <= -3;
+        invalid = low <= 0;
+      }
+
+      if (valid && invalid) {
+        depend();
+      } else if (valid) {
+        features |= param % 2 == 0 ? Projection.RANKS : Projection.SUIT_COUNTS;
+        push(0, HandTable.CARDS);
+      }
+      return true;
+    }
+
+    private void loop() {
+      if (depth >= interpreter.maxDepth() || size < 2) {
+        return;
+      }
+
+      int high = lows[--size];
+      int highMax = highs[size];
+      int low = lows[--size];
+      int lowMax = highs[size];
+
+      // Either the loop is skipped for every hand, or the bounds must be known
+      if (high > 13 || low >= highMax) {
+        return;
+      }
+      if (high != highMax || low != lowMax) {
+        depend();
+        return;
+      }
+      if (low >= high) {
+        return;
+      }
+
+      depth++;
+      int pos = pc;
+      int outer = loopStart;
+      loopStart = Math.min(pos, outer);
+      for (int i = low; i <= high && !stopped; i++) {
+        push(i);
+        execUntil(OpCode.ENDLOOP);
+        pc = pos;
+      }
+      loopStart = outer;
+    }
+
+    // Pushes the result of an arithmetic operation, which may wrap around
+    private void wrap(int low, int high) {
+      if (low == high) {
+        push((byte) low);
+      } else if (low >= Byte.MIN_VALUE && high <= Byte.MAX_VALUE) {
+        push(low, high);
+      } else {
+        push(Byte.MIN_VALUE, Byte.MAX_VALUE);
+      }
+    }
+
+    private void push(int value) {
+      push(value, value);
+    }
+
+    private void push(int low, int high) {
+      if (size == lows.length) {
+        lows = Arrays.copyOf(lows, size * 2);
+        highs = Arrays.copyOf(highs, size * 2);
+      }
+      lows[size] = (byte) low;
+      highs[size] = (byte) high;
+      size++;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package pokerga;
+
+/**
+ * Evaluates a program against many hands at once using the incubating Vector
+ * API. The API lives in the {@code jdk.incubator.vector} module, which is only
+ * resolved when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}. Without it there is no engine and
+ * the {@link Interpreter} evaluates one hand at a time.
+ */
+interface VectorEngine {
+
+  /**
+   * Evaluates every hand of the table with the program, writing the
+   * evaluations into the results array in table order. The results are exactly
+   * those of the scalar interpreter.
+   *
+   * @param results An array at least as long as the table
+   * @return The number of steps executed, see {@link Interpreter#setMaxSteps(int)}
+   */
+  long processBatch(Program program, HandTable table, int[] results);
+
+
+  /**
+   * Creates the engine for the interpreter.
+   *
+   * @return The engine, or null if the Vector API is not available
+   */
+  static VectorEngine load(Interpreter interpreter) {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return null;
+    }
+
+    try {
+      return new VectorInterpreter(interpreter);
+    } catch (LinkageError e) {
+      return null;
+    }
+  }
+}
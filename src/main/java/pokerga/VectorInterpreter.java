@@ -0,0 +1,505 @@
+package pokerga;
+
+import java.util.Objects;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import pokerga.Interpreter.Inst;
+
+/**
+ * A {@link VectorEngine} that runs a program over a block of hands in lockstep,
+ * one hand per lane of a byte vector. Every slot of the operand stack is a
+ * vector, so ADD, SUB, CMP, NOT, RET, READ and CNT are executed for all hands of
+ * the block by a handful of vector instructions.
+ * <p>
+ * The position in the program, the size of the stack and the loop depth are
+ * shared by all lanes. Where the hands disagree on one of them, e.g. the
+ * condition of an IF, the block follows the majority and the lanes that
+ * disagree are evicted. Evicted lanes are run again by another pass over the
+ * block, where their own majority decides, and the last few are left to the
+ * scalar interpreter. The results are always exactly those of the
+ * {@link Interpreter}.
+ * <p>
+ * This class is thread safe, every thread has its own lane state.
+ */
+final class VectorInterpreter implements VectorEngine {
+
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+  private static final int LANES = SPECIES.length();
+
+  // Once fewer lanes than this are left they are handed over to the scalar
+  // interpreter, which is cheaper than executing vectors that are mostly idle.
+  private static final int MIN_LANES = Math.max(1, LANES / 32);
+
+  // Java's remainder of every byte value divided by 5, indexed by the unsigned
+  // value of the byte.
+  private static final byte[] MOD5 = new byte[256];
+
+  static {
+    for (int i = Byte.MIN_VALUE; i <= Byte.MAX_VALUE; i++) {
+      MOD5[i & 0xFF] = (byte) (i % 5);
+    }
+  }
+
+  private final Interpreter interpreter;
+  private final ThreadLocal<Lanes> contexts = ThreadLocal.withInitial(Lanes::new);
+
+  VectorInterpreter(Interpreter interpreter) {
+    if (LANES > HandTable.LANES) {
+      throw new IllegalStateException("Vectors of " + LANES + " bytes are not supported.");
+    }
+    this.interpreter = interpreter;
+  }
+
+
+  /**
+   * @return The number of hands evaluated at once
+   */
+  static int lanes() {
+    return LANES;
+  }
+
+
+  @Override
+  public long processBatch(Program program, HandTable table, int[] results) {
+    Objects.requireNonNull(program);
+    Objects.requireNonNull(table);
+
+    Lanes lanes = contexts.get();
+    lanes.executed = 0;
+    long steps = 0;
+    Inst inst = null;
+    for (int first = 0, n = table.size(); first < n; first += LANES) {
+      int count = Math.min(LANES, n - first);
+      long pending = count == 64 ? -1L : (1L << count) - 1;
+
+      // Lanes evicted by one pass are run again by another, in which their
+      // own majority decides, until too few of them are left.
+      while (Long.bitCount(pending) >= MIN_LANES) {
+        long evicted = lanes.run(program, table, first, pending, results);
+        if (evicted == pending) {
+          break;
+        }
+        pending = evicted;
+      }
+
+      for (; pending != 0; pending &= pending - 1) {
+        int hand = first + Long.numberOfTrailingZeros(pending);
+        if (inst == null) {
+          inst = interpreter.context();
+        }
+        results[hand] = inst.reset(table, hand, program).process();
+        steps += inst.steps;
+      }
+    }
+    return steps + lanes.executed;
+  }
+
+
+  /**
+   * The state of a block of hands being evaluated in lockstep. This mirrors
+   * {@link Inst}, with one value per lane wherever the hands may differ.
+   * <p>
+   * This class is not thread safe.
+   */
+  private final class Lanes {
+    // Slot s of the stack holds the lanes at [s * LANES, s * LANES + LANES)
+    private byte[] stack = new byte[64 * LANES];
+    private int size;
+
+    private final byte[] returnValues = new byte[LANES];
+    private final byte[] scratch = new byte[LANES];
+
+    // The steps after which a lane returned 9 and was done
+    private final int[] laneSteps = new int[LANES];
+
+    // The card columns of the table, starting at the first hand of the block.
+    private byte[] ranks;
+    private byte[] suits;
+    private int stride;
+    private int first;
+
+    private Program program;
+    private int pc;
+    private int depth;
+    private int steps;
+    private boolean halted;
+
+    // The lanes still being evaluated, those that are done early, and those
+    // left to the scalar interpreter
+    private long active;
+    private long done;
+    private long evicted;
+
+    // The steps executed by all lanes that were not evicted
+    long executed;
+
+    /**
+     * Evaluates some of a block of hands of the table, writing the evaluations
+     * of the lanes that were not evicted into the results.
+     *
+     * @param first The index of the first hand of the block
+     * @param lanes The lanes of the block to evaluate
+     * @return The lanes that were evicted
+     */
+    long run(Program program, HandTable table, int first, long lanes, int[] results) {
+      this.ranks = table.rankColumns();
+      this.suits = table.suitColumns();
+      this.stride = table.stride();
+      this.first = first;
+      this.program = program;
+      this.size = 0;
+      this.pc = 0;
+      this.depth = 0;
+      this.steps = 0;
+      this.halted = false;
+      this.active = lanes;
+      this.done = 0;
+      this.evicted = 0;
+      ByteVector.broadcast(SPECIES, (byte) -1).intoArray(returnValues, 0);
+
+      while (pc < program.length() && active != 0 && !halted) {
+        execUntil(OpCode.EOF);
+      }
+
+      for (long finished = active | done; finished != 0; finished &= finished - 1) {
+        int lane = Long.numberOfTrailingZeros(finished);
+        results[first + lane] = returnValues[lane];
+        executed += (done & 1L << lane) != 0 ? laneSteps[lane] : steps;
+      }
+      return evicted;
+    }
+
+    private void execUntil(OpCode op) {
+      while (pc < program.length() && active != 0 && !halted) {
+        OpCode next = program.ops[pc++];
+
+        // Every lane runs out of steps at the same instruction
+        if (next != OpCode.UNK) {
+          if (steps == interpreter.maxSteps()) {
+            halted = true;
+            return;
+          }
+          steps++;
+        }
+        process(next);
+        if (op == next) {
+          break;
+        }
+      }
+    }
+
+    private void process(OpCode code) {
+      switch (code) {
+      case PUSH:
+        if (pc < program.length() && size <= interpreter.maxStack()) {
+          push(program.codes[pc++]);
+        }
+        break;
+      case DUP:
+        dup();
+        break;
+      case DROP:
+        if (size > 0) {
+          size--;
+        }
+        break;
+      case ADD:
+        add();
+        break;
+      case SUB:
+        sub();
+        break;
+      case CMP:
+        cmp();
+        break;
+      case NOT:
+        not();
+        break;
+      case IFOP:
+        ifop();
+        break;
+      case RET:
+        ret();
+        break;
+      case READ:
+        if (pc < program.length() && read(program.codes[pc])) {
+          pc++;
+        }
+        break;
+      case CNT:
+        if (pc < program.length() && count(program.codes[pc])) {
+          pc++;
+        }
+        break;
+      case LOOP:
+        loop();
+        break;
+      case ENDLOOP:
+        if (depth > 0) {
+          depth--;
+        }
+        break;
+      case ENDIF:
+      case EOF:
+      case UNK:
+        break;
+      default:
+        throw new AssertionError();
+      }
+    }
+
+    private void dup() {
+      if (size == 0) {
+        return;
+      }
+      push(top());
+    }
+
+    private void add() {
+      if (size < 2) {
+        return;
+      }
+      ByteVector b1 = pop();
+      ByteVector b2 = pop();
+      push(b1.add(b2));
+    }
+
+    private void sub() {
+      if (size < 2) {
+        return;
+      }
+      ByteVector b1 = pop();
+      ByteVector b2 = pop();
+      push(b1.sub(b2));
+    }
+
+    private void cmp() {
+      if (size < 2) {
+        return;
+      }
+      ByteVector b1 = pop();
+      ByteVector b2 = pop();
+      push(ByteVector.zero(SPECIES).blend(1, b1.eq(b2)));
+    }
+
+    private void not() {
+      if (size == 0) {
+        return;
+      }
+      ByteVector val = pop();
+      push(ByteVector.zero(SPECIES).blend(1, val.eq((byte) 0)));
+    }
+
+    private void ifop() {
+      if (size == 0) {
+        return;
+      }
+
+      long test = pop().compare(VectorOperators.NE, 0).toLong();
+      if (follow(test)) {
+        execUntil(OpCode.ENDIF);
+      } else {
+        // Skip past the next ENDIF, the IF sits just before the current position
+        pc = program.jumps[pc - 1];
+      }
+    }
+
+    private void ret() {
+      if (size == 0) {
+        return;
+      }
+
+      ByteVector ret = pop();
+      ByteVector best = ByteVector.fromArray(SPECIES, returnValues, 0);
+      VectorMask<Byte> better = ret.compare(VectorOperators.GE, 0)
+          .and(ret.compare(VectorOperators.LE, 9))
+          .and(ret.compare(VectorOperators.GT, best));
+      best.blend(ret, better).intoArray(returnValues, 0);
+
+      // Lanes that return 9 can not improve any further and are done
+      long nine = better.and(ret.eq((byte) 9)).toLong() & active;
+      if (nine != 0) {
+        for (long lanes = nine; lanes != 0; lanes &= lanes - 1) {
+          laneSteps[Long.numberOfTrailingZeros(lanes)] = steps;
+        }
+        done |= nine;
+        active &= ~nine;
+      }
+    }
+
+    private boolean read(int param) {
+      if (size == 0) {
+        return false;
+      }
+
+      // The index of the card is the value on the stack mod 5, negative
+      // remainders are invalid.
+      int offset = --size * LANES;
+      for (int lane = 0; lane < LANES; lane++) {
+        scratch[lane] = MOD5[stack[offset + lane] & 0xFF];
+      }
+      ByteVector idx = ByteVector.fromArray(SPECIES, scratch, 0);
+      if (!follow(idx.compare(VectorOperators.GE, 0).toLong())) {
+        return false;
+      }
+
+      byte[] cards = param % 2 == 0 ? ranks : suits;
+      ByteVector value = ByteVector.zero(SPECIES);
+      for (int c = 0; c < HandTable.CARDS; c++) {
+        value = value.blend(column(cards, c), idx.eq((byte) c));
+      }
+      push(value);
+      return true;
+    }
+
+    private boolean count(int param) {
+      if (size == 0) {
+        return false;
+      }
+
+      ByteVector val = pop();
+      VectorMask<Byte> valid;
+      byte[] cards;
+      if (param % 2 == 0) {
+        // Ranks in the range of 1..13
+        valid = val.compare(VectorOperators.GE, 1).and(val.compare(VectorOperators.LE, 13));
+        cards = ranks;
+
+      } else {
+        // Suits are ((val - 1) % 4) + 1, which is in the range of 1..4 for
+        // positive values and for values one above a multiple of 4.
+        ByteVector mod = val.sub((byte) 1).and((byte) 3);
+        valid = val.compare(VectorOperators.GT, 0).or(mod.eq((byte) 0));
+        val = mod.add((byte) 1);
+        cards = suits;
+      }
+
+      // The operand is consumed either way, only valid lanes push the count
+      if (!follow(valid.toLong())) {
+        return true;
+      }
+
+      ByteVector count = ByteVector.zero(SPECIES);
+      for (int c = 0; c < HandTable.CARDS; c++) {
+        count = count.add((byte) 1, column(cards, c).eq(val));
+      }
+      push(count);
+      return true;
+    }
+
+    private void loop() {
+      if (depth >= interpreter.maxDepth() || size < 2) {
+        return;
+      }
+
+      // The bounds are popped by every lane, but only lanes that agree on
+      // them can iterate together.
+      int high = --size * LANES;
+      int low = --size * LANES;
+      int bounds = majority(high, low);
+      if (bounds < 0) {
+        return;
+      }
+
+      depth++;
+      int pos = pc;
+      for (int i = (byte) (bounds >> 8), end = (byte) bounds; i <= end && active != 0 && !halted; i++) {
+        push(ByteVector.broadcast(SPECIES, (byte) i));
+        execUntil(OpCode.ENDLOOP);
+        pc = pos;
+      }
+    }
+
+    /**
+     * Finds the most common outcome of a LOOP among the active lanes, and
+     * evicts the lanes with another outcome.
+     *
+     * @return The low and high bounds as bytes packed into a short, or -1 if the
+     *         loop is not entered
+     */
+    private int majority(int high, int low) {
+      int candidate = 0;
+      int votes = 0;
+      for (long lanes = active; lanes != 0; lanes &= lanes - 1) {
+        int bounds = bounds(high, low, Long.numberOfTrailingZeros(lanes));
+        if (votes == 0) {
+          candidate = bounds;
+        }
+        votes += bounds == candidate ? 1 : -1;
+      }
+
+      long agree = 0;
+      for (long lanes = active; lanes != 0; lanes &= lanes - 1) {
+        int lane = Long.numberOfTrailingZeros(lanes);
+        if (bounds(high, low, lane) == candidate) {
+          agree |= 1L << lane;
+        }
+      }
+      evict(active & ~agree);
+      return candidate;
+    }
+
+    private int bounds(int high, int low, int lane) {
+      byte h = stack[high + lane];
+      byte l = stack[low + lane];
+      if (h > 13 || l >= h) {
+        return -1;
+      }
+      return (l & 0xFF) << 8 | (h & 0xFF);
+    }
+
+    /**
+     * Chooses the branch most of the active lanes take, and evicts the lanes
+     * that take the other.
+     *
+     * @param lanes The lanes that take the branch
+     * @return True if the branch is taken
+     */
+    private boolean follow(long lanes) {
+      long taken = lanes & active;
+      long skipped = active & ~lanes;
+      if (Long.bitCount(taken) >= Long.bitCount(skipped)) {
+        evict(skipped);
+        return true;
+      }
+      evict(taken);
+      return false;
+    }
+
+    private void evict(long lanes) {
+      active &= ~lanes;
+      evicted |= lanes;
+      if (active != 0 && Long.bitCount(active) < MIN_LANES) {
+        evicted |= active;
+        active = 0;
+      }
+    }
+
+    private ByteVector column(byte[] cards, int card) {
+      return ByteVector.fromArray(SPECIES, cards, card * stride + first);
+    }
+
+    private ByteVector top() {
+      return ByteVector.fromArray(SPECIES, stack, (size - 1) * LANES);
+    }
+
+    private ByteVector pop() {
+      return ByteVector.fromArray(SPECIES, stack, --size * LANES);
+    }
+
+    private void push(int value) {
+      push(ByteVector.broadcast(SPECIES, (byte) value));
+    }
+
+    private void push(ByteVector value) {
+      if ((size + 1) * LANES > stack.length) {
+        byte[] larger = new byte[stack.length * 2];
+        System.arraycopy(stack, 0, larger, 0, size * LANES);
+        stack = larger;
+      }
+      value.intoArray(stack, size++ * LANES);
+    }
+  }
+}
@@ -0,0 +1,406 @@
+package pokerga;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * Evaluates organisms in worker processes on the same host, each with a heap
+ * of its own, instead of in the process of the {@link Evaluator}. Every worker
+ * is an {@link EvaluationWorker} started with the classpath of this process,
+ * which loads its own copy of the hands of the {@link HandReader} and
+ * evaluates them with the settings of the {@link Interpreter}.
+ * <p>
+ * The organisms are sent in batches, several of which are in flight to every
+ * worker at a time, so that a worker never waits for its next batch. Only the
+ * counts of every organism come back. When a worker fails, its batches in
+ * flight are sent again to the next worker to take them, and the worker is
+ * started again. A worker that keeps failing is retired, and the others
+ * evaluate the rest of the batches.
+ * <p>
+ * The workers are started on first use and stopped when the farm is
+ * destroyed.
+ */
+public final class WorkerFarm implements InitializingBean, DisposableBean {
+
+  private HandReader handReader;
+  private Interpreter interpreter;
+  private int workers = Runtime.getRuntime().availableProcessors();
+  private int batchSize = 16;
+  private int pipeline = 2;
+  private int retries = 2;
+  private List<String> jvmOptions = List.of();
+
+  private final List<Worker> running = new ArrayList<>();
+  private ExecutorService executor;
+
+  public void setHandReader(HandReader handReader) {
+    this.handReader = handReader;
+  }
+
+  public void setInterpreter(Interpreter interpreter) {
+    this.interpreter = interpreter;
+  }
+
+  /**
+   * The number of worker processes.
+   *
+   * @param workers
+   */
+  public void setWorkers(int workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Workers must be positive.");
+    }
+    this.workers = workers;
+  }
+
+  /**
+   * The number of organisms of every batch.
+   *
+   * @param batchSize
+   */
+  public void setBatchSize(int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive.");
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * The number of batches in flight to every worker.
+   *
+   * @param pipeline
+   */
+  public void setPipeline(int pipeline) {
+    if (pipeline < 1) {
+      throw new IllegalArgumentException("Pipeline must be positive.");
+    }
+    this.pipeline = pipeline;
+  }
+
+  /**
+   * The number of times a batch is sent again after the worker it was sent to
+   * failed, and a worker is started again after failing to respond at all,
+   * before it is retired.
+   *
+   * @param retries
+   */
+  public void setRetries(int retries) {
+    if (retries < 0) {
+      throw new IllegalArgumentException("Retries must not be negative.");
+    }
+    this.retries = retries;
+  }
+
+  /**
+   * The options of the worker JVMs, such as their heap size or
+   * {@code --add-modules jdk.incubator.vector}.
+   *
+   * @param jvmOptions
+   */
+  public void setJvmOptions(List<String> jvmOptions) {
+    this.jvmOptions = List.copyOf(jvmOptions);
+  }
+
+  @Override
+  public void afterPropertiesSet() throws Exception {
+    Objects.requireNonNull(handReader);
+    Objects.requireNonNull(interpreter);
+  }
+
+  @Override
+  public synchronized void destroy() throws Exception {
+    for (Worker worker : running) {
+      worker.stop();
+    }
+    running.clear();
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  /**
+   * Evaluates the first organism of every group in the workers.
+   *
+   * @return The number of organisms whose results do not depend on the hand
+   */
+  public synchronized int evaluate(List<List<Organism>> groups, AggregatedResults aggregator) {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(workers);
+      for (int i = 0; i < workers; i++) {
+        running.add(new Worker(i));
+      }
+    }
+
+    List<Batch> batches = new ArrayList<>();
+    for (int from = 0; from < groups.size(); from += batchSize) {
+      batches.add(new Batch(batches.size(), groups.subList(from, Math.min(from + batchSize, groups.size()))));
+    }
+    List<Worker> available = new ArrayList<>();
+    for (Worker worker : running) {
+      if (!worker.retired) {
+        available.add(worker);
+      }
+    }
+    if (available.isEmpty()) {
+      throw new IllegalStateException("Every worker has been retired.");
+    }
+    Job job = new Job(batches, available.size());
+
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Worker worker : available) {
+        futures.add(executor.submit(() -> worker.work(job)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+
+    if (job.failure != null) {
+      throw new IllegalStateException(job.failure);
+    }
+
+    int degenerate = 0;
+    for (Batch batch : batches) {
+      for (int i = 0; i < batch.groups.size(); i++) {
+        List<Organism> group = batch.groups.get(i);
+        aggregator.aggregate(group.get(0), batch.correct[i], batch.total[i], batch.steps[i]);
+        if (!batch.dependent[i]) {
+          degenerate += group.size();
+        }
+      }
+    }
+    return degenerate;
+  }
+
+  private List<String> command() {
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+    command.addAll(jvmOptions);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(EvaluationWorker.class.getName());
+    command.add(handReader.getFile().getPath());
+    command.add(String.valueOf(handReader.getMaxHands()));
+    command.add(String.valueOf(handReader.isDeduplicate()));
+    command.add(String.valueOf(interpreter.maxStack()));
+    command.add(String.valueOf(interpreter.maxSteps()));
+    command.add(String.valueOf(interpreter.isVectorized()));
+    return command;
+  }
+
+  /**
+   * Kills a worker process, which fails the next time it is used.
+   */
+  synchronized void kill(int worker) throws InterruptedException {
+    running.get(worker).process.destroyForcibly().waitFor();
+  }
+
+  /**
+   * Kills a worker process, and keeps it from starting again, so that the
+   * worker fails every time it is used until it is retired.
+   */
+  synchronized void disable(int worker) throws InterruptedException {
+    running.get(worker).disabled = true;
+    kill(worker);
+  }
+
+
+  /**
+   * The organisms of a batch, and their counts once evaluated.
+   */
+  private static final class Batch {
+    private final int id;
+    private final List<List<Organism>> groups;
+    private final boolean[] dependent;
+    private final int[][] correct;
+    private final int[][] total;
+    private final long[] steps;
+
+    // The number of times the batch has been sent
+    private int attempts = 0;
+
+    Batch(int id, List<List<Organism>> groups) {
+      this.id = id;
+      this.groups = groups;
+      this.dependent = new boolean[groups.size()];
+      this.correct = new int[groups.size()][HandClasses.CLASSES];
+      this.total = new int[groups.size()][HandClasses.CLASSES];
+      this.steps = new long[groups.size()];
+    }
+  }
+
+  /**
+   * The batches of a call to {@link WorkerFarm#evaluate(List, AggregatedResults)}.
+   */
+  private static final class Job {
+    private final BlockingQueue<Batch> pending;
+    private final AtomicInteger remaining;
+
+    // The workers that have not been retired
+    private final AtomicInteger workers;
+
+    // Set when a batch has failed too often, or every worker has been retired,
+    // the job is abandoned
+    private volatile String failure;
+
+    Job(List<Batch> batches, int workers) {
+      this.pending = new LinkedBlockingQueue<>(batches);
+      this.remaining = new AtomicInteger(batches.size());
+      this.workers = new AtomicInteger(workers);
+    }
+
+    boolean done() {
+      return remaining.get() == 0 || failure != null;
+    }
+  }
+
+  /**
+   * A worker process, and the thread of this process that feeds it.
+   */
+  private final class Worker {
+    private final int index;
+    private Process process;
+    private DataOutputStream out;
+    private DataInputStream in;
+
+    // Failures since the worker last responded
+    private int failures = 0;
+
+    // Set once the worker has failed too often in a row, it takes no more
+    // batches
+    private volatile boolean retired = false;
+    private volatile boolean disabled = false;
+
+    Worker(int index) {
+      this.index = index;
+    }
+
+    void work(Job job) {
+      Deque<Batch> inflight = new ArrayDeque<>();
+      while (!job.done()) {
+        try {
+          if (process == null) {
+            start();
+          }
+
+          // Keep the pipeline full
+          while (inflight.size() < pipeline) {
+            Batch batch = inflight.isEmpty() ? job.pending.poll(10, TimeUnit.MILLISECONDS) : job.pending.poll();
+            if (batch == null) {
+              break;
+            }
+            batch.attempts++;
+            inflight.add(batch);
+            send(batch);
+          }
+          out.flush();
+
+          if (!inflight.isEmpty()) {
+            receive(inflight.poll());
+            failures = 0;
+            job.remaining.decrementAndGet();
+          }
+
+        } catch (IOException e) {
+          System.out.println("  Worker " + (index + 1) + " failed: " + e);
+          stop();
+          for (Batch batch : inflight) {
+            if (batch.attempts > retries) {
+              job.failure = "Batch " + batch.id + " failed " + batch.attempts + " times.";
+            }
+            job.pending.add(batch);
+          }
+          inflight.clear();
+          if (++failures > retries) {
+            System.out.println("  Worker " + (index + 1) + " retired after failing " + failures + " times in a row.");
+            retired = true;
+            if (job.workers.decrementAndGet() == 0) {
+              job.failure = "Every worker has been retired.";
+            }
+            return;
+          }
+
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          job.failure = "Interrupted.";
+        }
+      }
+
+      // The responses to batches still in flight would be read by the next job
+      if (!inflight.isEmpty()) {
+        stop();
+      }
+    }
+
+    private void start() throws IOException {
+      if (disabled) {
+        throw new IOException("Disabled.");
+      }
+      ProcessBuilder builder = new ProcessBuilder(command());
+      builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+      process = builder.start();
+      out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+      in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    private void send(Batch batch) throws IOException {
+      out.writeInt(batch.id);
+      out.writeInt(batch.groups.size());
+      for (List<Organism> group : batch.groups) {
+        Migration.writeChromosome(out, group.get(0).getChromosome());
+      }
+    }
+
+    private void receive(Batch batch) throws IOException {
+      int id = in.readInt();
+      int count = in.readInt();
+      if (id != batch.id || count != batch.groups.size()) {
+        throw new IOException("Unexpected response to batch " + batch.id + ": " + id);
+      }
+      for (int i = 0; i < count; i++) {
+        batch.dependent[i] = in.readBoolean();
+        for (int c = 0; c < HandClasses.CLASSES; c++) {
+          batch.correct[i][c] = in.readInt();
+          batch.total[i][c] = in.readInt();
+        }
+        batch.steps[i] = in.readLong();
+      }
+    }
+
+    void stop() {
+      if (process != null) {
+        process.destroyForcibly();
+        process = null;
+      }
+    }
+  }
+
+}
@@ -1,15 +1,11 @@
 package pokerga.init;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import org.springframework.beans.factory.InitializingBean;
+import pokerga.ComputeScheduler;
 import pokerga.Organism;
 import pokerga.Population;
 
@@ -19,6 +15,7 @@ public final class InitialPopulation implements Supplier<Population>, Initializi
 
   private int populationSize = DEFAULT_SIZE;
   private Supplier<Organism> organismSupplier = new RandomOrganism();
+  private ComputeScheduler scheduler = ComputeScheduler.getDefault();
 
   public int getPopulationSize() {
     return populationSize;
@@ -32,46 +29,30 @@ public final class InitialPopulation implements Supplier<Population>, Initializi
     this.organismSupplier = organismSupplier;
   }
 
+  /**
+   * The threads that create the organisms.
+   *
+   * @param scheduler
+   */
+  public void setScheduler(ComputeScheduler scheduler) {
+    this.scheduler = scheduler;
+  }
+
   @Override
   public void afterPropertiesSet() throws Exception {
     if (populationSize < 1) {
       throw new IllegalArgumentException("Population size must be greater than zero.");
     }
     Objects.requireNonNull(organismSupplier);
+    Objects.requireNonNull(scheduler);
   }
 
   @Override
   public Population get() {
-    ExecutorService executor = Executors.newWorkStealingPool();
-    try {
-      // Create the organisms using the executor service
-      List<Future<Organism>> futures = new ArrayList<>(populationSize);
-      for (int i = 0; i < populationSize; i++) {
-        Future<Organism> future = executor.submit(() -> {
-          return organismSupplier.get();
-        });
-        futures.add(future);
-      }
-
-      // Retrieve the organisms and add them to a new list
-      List<Organism> organisms = new ArrayList<>(populationSize);
-      for (Future<Organism> future : futures) {
-        organisms.add(future.get());
-      }
-
-      organisms = Collections.unmodifiableList(organisms);
-      return new Population(0, organisms);
-
-    } catch (ExecutionException e) {
-      throw new IllegalStateException(e);
-
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new IllegalStateException(e);
-
-    } finally {
-      executor.shutdown();
-    }
+    // Create the organisms using the scheduler
+    Organism[] organisms = new Organism[populationSize];
+    scheduler.run(populationSize, i -> organisms[i] = organismSupplier.get());
+    return new Population(0, Collections.unmodifiableList(Arrays.asList(organisms)));
   }
 
 }
@@ -7,6 +7,10 @@ public final class OrganismFactory {
 
   private AtomicInteger counter = new AtomicInteger();
 
+  public AtomicInteger getCounter() {
+    return counter;
+  }
+
   public void setCounter(AtomicInteger counter) {
     this.counter = counter;
   }
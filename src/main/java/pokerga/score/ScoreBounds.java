@@ -0,0 +1,76 @@
+package pokerga.score;
+
+/**
+ * Bounds on the {@link StandardScorer} score an organism will have once it has
+ * been evaluated against every hand, while it has only been evaluated against
+ * some of them. The score is the mean accuracy over the evaluation classes, and
+ * the accuracy of every class is bounded on its own.
+ * <p>
+ * The hands of a class that have not been evaluated yet are at best all
+ * correct and at worst all wrong. Assuming the hands evaluated so far are a
+ * random sample of the class, Hoeffding's inequality narrows this to the
+ * accuracy observed so far, give or take {@code sqrt(ln(2 / delta) / 2n)} for
+ * {@code n} hands evaluated, with a probability of at least
+ * {@code 1 - delta} for every class.
+ */
+public final class ScoreBounds {
+
+  // The number of hands of every evaluation class once all are evaluated
+  private final int[] totals;
+
+  // ln(2 / delta)
+  private final double log;
+
+  /**
+   * @param totals     The number of hands of every evaluation class
+   * @param confidence The probability that the accuracy of a class is within
+   *                   its bounds, less than 1
+   */
+  public ScoreBounds(int[] totals, double confidence) {
+    if (!(confidence > 0 && confidence < 1)) {
+      throw new IllegalArgumentException("Confidence must be between 0 and 1.");
+    }
+    this.totals = totals.clone();
+    this.log = Math.log(2 / (1 - confidence));
+  }
+
+  /**
+   * @param correct The hands of every class evaluated correctly so far
+   * @param seen    The hands of every class evaluated so far
+   * @return The lowest score the organism is likely to have
+   */
+  public double lower(int[] correct, int[] seen) {
+    return bound(correct, seen, false);
+  }
+
+  /**
+   * @param correct The hands of every class evaluated correctly so far
+   * @param seen    The hands of every class evaluated so far
+   * @return The highest score the organism is likely to have
+   */
+  public double upper(int[] correct, int[] seen) {
+    return bound(correct, seen, true);
+  }
+
+  private double bound(int[] correct, int[] seen, boolean upper) {
+    double score = 0.0;
+    for (int i = 0; i < totals.length; i++) {
+      if (totals[i] == 0) {
+        continue;
+      }
+
+      // The accuracy of the hands that remain
+      double rate;
+      if (seen[i] == 0) {
+        rate = upper ? 1.0 : 0.0;
+      } else {
+        double observed = 1.0 * correct[i] / seen[i];
+        double margin = Math.sqrt(log / (2.0 * seen[i]));
+        rate = upper ? Math.min(1.0, observed + margin) : Math.max(0.0, observed - margin);
+      }
+
+      score += (correct[i] + (totals[i] - seen[i]) * rate) / totals[i];
+    }
+    return score / totals.length;
+  }
+}
@@ -26,6 +26,6 @@ public final class StandardScorer implements Scorer {
 
     score /= correct.length;
 
-    return new ScoredResult(result.getOrganism(), result.correct(), result.total(), score);
+    return new ScoredResult(result.getOrganism(), result.correct(), result.total(), score, result.isEstimated());
   }
 }
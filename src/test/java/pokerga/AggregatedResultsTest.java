@@ -0,0 +1,67 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class AggregatedResultsTest {
+
+  @Test
+  void testAggregateById() throws InterruptedException {
+    Random random = new Random(0);
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < 1000; i++) {
+      Hand.Builder hand = Hand.newBuilder();
+      for (int j = 0; j < 5; j++) {
+        hand.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+      }
+      builder.add(hand.evaluation(random.nextInt(10)).build(), random.nextInt(3) + 1);
+    }
+    HandTable table = builder.build();
+
+    List<Organism> organisms = List.of(new Organism("a", "00 A0 9"), new Organism("b", "01 A0 9"));
+    AggregatedResults byOrganism = new AggregatedResults();
+    AggregatedResults byId = new AggregatedResults(organisms);
+    Interpreter interpreter = new Interpreter();
+
+    Thread[] threads = new Thread[4];
+    for (Organism organism : organisms) {
+      int[] evaluations = interpreter.processBatch(organism, table);
+      // Every thread counts into its own tally
+      for (int i = 0; i < threads.length; i++) {
+        byOrganism.aggregate(organism, table, evaluations, 10);
+        threads[i] = new Thread(() -> byId.aggregate(byId.id(organism), table, evaluations, 10));
+        threads[i].start();
+      }
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+
+    for (Organism organism : organisms) {
+      assertArrayEquals(byOrganism.getAggregatedResult(organism).correct(),
+          byId.getAggregatedResult(organism).correct());
+      assertArrayEquals(byOrganism.getAggregatedResult(organism).total(),
+          byId.getAggregatedResult(organism).total());
+      assertEquals(40, byId.getAggregatedResult(organism).getSteps());
+    }
+
+    // Merging again adds nothing
+    assertEquals(2, byId.getResults().size());
+    assertEquals(40, byId.getAggregatedResult(organisms.get(0)).getSteps());
+
+    // Counts aggregated after a read are merged by the next read, as when racing
+    Thread thread = new Thread(() -> byId.aggregate(0, table, new int[table.size()], 5));
+    thread.start();
+    thread.join();
+    assertEquals(45, byId.getAggregatedResult(organisms.get(0)).getSteps());
+    assertEquals(45, byId.getAggregatedResult(organisms.get(0)).getSteps());
+
+    assertThrows(IllegalArgumentException.class, () -> byId.id(new Organism("c", "9")));
+  }
+
+}
@@ -0,0 +1,80 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pokerga.init.OrganismFactory;
+
+class CheckpointTest {
+
+  @Test
+  void testRandom() {
+    Random expected = new Random(42);
+    RestorableRandom random = new RestorableRandom(42);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(expected.nextInt(100), random.nextInt(100));
+      assertEquals(expected.nextLong(), random.nextLong());
+    }
+
+    long state = random.getState();
+    int[] drawn = new int[10];
+    for (int i = 0; i < drawn.length; i++) {
+      drawn[i] = random.nextInt();
+    }
+    RestorableRandom restored = new RestorableRandom();
+    restored.setState(state);
+    for (int i = 0; i < drawn.length; i++) {
+      assertEquals(drawn[i], restored.nextInt());
+    }
+  }
+
+  @Test
+  void testSaveLoad(@TempDir Path directory) throws Exception {
+    OrganismFactory factory = new OrganismFactory();
+    RestorableRandom random = new RestorableRandom(7);
+    Checkpoint checkpoint = new Checkpoint();
+    checkpoint.setFile(new File(directory.toFile(), "checkpoint.bin"));
+    checkpoint.setInterval(3);
+    checkpoint.setFactory(factory);
+    checkpoint.setRandoms(List.of(random));
+    checkpoint.afterPropertiesSet();
+
+    assertTrue(checkpoint.isDue(6));
+    assertFalse(checkpoint.isDue(7));
+
+    Organism first = factory.create("0123456789ABCDEF");
+    Organism second = factory.create("FEDCB");
+    int[] correct = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+    int[] total = { 2, 4, 6, 8, 10, 12, 14, 16, 18, 20 };
+    ScoredResult score = new ScoredResult(first, correct, total, 0.5, true);
+    Population population = new Population(6, List.of(first, second));
+    long state = random.getState();
+    checkpoint.save(population, List.of(score));
+    checkpoint.await();
+
+    // Restored from the checkpoint
+    random.nextLong();
+    factory.create("0");
+    Checkpoint.Resumed resumed = checkpoint.load();
+    assertEquals(state, random.getState());
+    assertEquals("00000002", factory.create("0").getName());
+    assertEquals(population, resumed.population());
+
+    ScoredResult loaded = resumed.scores().get(0);
+    assertEquals(first, loaded.getOrganism());
+    assertArrayEquals(correct, loaded.getCorrect());
+    assertArrayEquals(total, loaded.getTotal());
+    assertEquals(0.5, loaded.getScore());
+    assertTrue(loaded.isEstimated());
+    assertFalse(new File(directory.toFile(), "checkpoint.bin.tmp").exists());
+    checkpoint.destroy();
+  }
+}
@@ -0,0 +1,25 @@
+package pokerga;
+
+import java.util.Random;
+
+/**
+ * Random chromosomes for the tests.
+ */
+final class Chromosomes {
+
+  private static final char[] hex = "0123456789ABCDEF".toCharArray();
+
+  private Chromosomes() {
+  }
+
+  /**
+   * @return A chromosome of the length, every gene drawn from the random
+   */
+  static String random(Random random, int length) {
+    StringBuilder sb = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      sb.append(hex[random.nextInt(hex.length)]);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,65 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Test;
+
+class ComputeSchedulerTest {
+
+  @Test
+  void testRun() throws Exception {
+    for (boolean workStealing : new boolean[] { true, false }) {
+      ComputeScheduler scheduler = new ComputeScheduler();
+      scheduler.setParallelism(3);
+      scheduler.setName("test");
+      scheduler.setWorkStealing(workStealing);
+      try {
+        ComputeScheduler.Usage usage = scheduler.getUsage();
+        AtomicIntegerArray runs = new AtomicIntegerArray(100);
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        scheduler.run(runs.length(), i -> {
+          runs.incrementAndGet(i);
+          names.add(Thread.currentThread().getName());
+        });
+        for (int i = 0; i < runs.length(); i++) {
+          assertEquals(1, runs.get(i));
+        }
+        assertTrue(names.stream().allMatch(name -> name.matches("test-[123]")), names.toString());
+        assertEquals(100, scheduler.getUsage().since(usage).tasks());
+
+        // Tasks may run tasks of their own, even when every thread is busy
+        AtomicIntegerArray nested = new AtomicIntegerArray(10 * 10);
+        scheduler.run(10, i -> scheduler.run(10, j -> nested.incrementAndGet(i * 10 + j)));
+        for (int i = 0; i < nested.length(); i++) {
+          assertEquals(1, nested.get(i));
+        }
+
+        IllegalArgumentException failure = assertThrows(IllegalArgumentException.class,
+            () -> scheduler.run(10, i -> {
+              if (i == 7) {
+                throw new IllegalArgumentException("Task " + i);
+              }
+            }));
+        assertTrue(failure.getMessage().endsWith("Task 7"), failure.getMessage());
+
+      } finally {
+        scheduler.destroy();
+      }
+    }
+  }
+
+  @Test
+  void testUsage() {
+    ComputeScheduler.Usage earlier = new ComputeScheduler.Usage(1000, 10, 500, 3, 2);
+    ComputeScheduler.Usage later = new ComputeScheduler.Usage(3000, 30, 2500, 5, 2);
+    ComputeScheduler.Usage usage = later.since(earlier);
+    assertEquals(20, usage.tasks());
+    assertEquals(5, usage.peakQueueDepth());
+    assertEquals(0.5, usage.utilization(), 1e-9);
+  }
+}
@@ -0,0 +1,49 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import pokerga.AggregatedResults.AggregatedResult;
+
+class FitnessCacheTest {
+
+  @Test
+  void testEviction() {
+    FitnessCache cache = new FitnessCache(2);
+    Program a = Program.compile("01 9");
+    Program b = Program.compile("02 9");
+    Program c = Program.compile("03 9");
+    AggregatedResult result = new AggregatedResult(new Organism("a", "01 9"));
+
+    cache.put(a, result);
+    cache.put(b, result);
+    assertSame(result, cache.get(a));
+
+    // b is the least recently used
+    cache.put(c, result);
+    assertEquals(1, cache.getEvictions());
+    assertNull(cache.get(b));
+    assertSame(result, cache.get(a));
+    assertSame(result, cache.get(c));
+
+    // Equal programs share their results
+    assertSame(result, cache.get(Program.compile("E03 9 1").canonical()));
+
+    assertEquals(4, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void testDisabled() {
+    FitnessCache cache = new FitnessCache(0);
+    Program program = Program.compile("01 9");
+    cache.put(program, new AggregatedResult(new Organism("a", "01 9")));
+    assertNull(cache.get(program));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getEvictions());
+  }
+
+}
@@ -0,0 +1,65 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HandFileTest {
+
+  private static final File data = new File("src/test/resources/data.test");
+
+  @Test
+  void testPack() throws IOException {
+    HandReader reader = new HandReader();
+    reader.setFile(data);
+    List<Hand> hands = new ArrayList<>();
+    reader.read(hands::add);
+
+    for (Hand hand : hands) {
+      long packed = HandFile.pack(hand);
+      assertEquals(hand.toString(), HandFile.unpack(packed).toString());
+      assertTrue(packed < 1L << 34);
+    }
+  }
+
+  @Test
+  void testConvert(@TempDir File dir) throws IOException {
+    File binary = new File(dir, "data.bin");
+    HandReader csv = new HandReader();
+    csv.setFile(data);
+    assertEquals(10, HandFile.convert(csv, binary));
+    assertTrue(HandFile.isBinary(binary));
+    assertFalse(HandFile.isBinary(data));
+
+    HandReader mapped = new HandReader();
+    mapped.setFile(binary);
+    List<Hand> expecteds = new ArrayList<>();
+    List<Hand> actuals = new ArrayList<>();
+    csv.read(expecteds::add);
+    mapped.read(actuals::add);
+    assertEquals(expecteds.toString(), actuals.toString());
+
+    for (boolean deduplicate : new boolean[] { false, true }) {
+      csv.setDeduplicate(deduplicate);
+      mapped.setDeduplicate(deduplicate);
+      HandTable expected = csv.readTable();
+      HandTable actual = mapped.readTable();
+      assertArrayEquals(expected.ranks, actual.ranks);
+      assertArrayEquals(expected.suits, actual.suits);
+      assertArrayEquals(expected.evaluations, actual.evaluations);
+      assertArrayEquals(expected.weights, actual.weights);
+    }
+
+    mapped.setMaxHands(3);
+    assertEquals(3, mapped.load().size());
+  }
+
+}
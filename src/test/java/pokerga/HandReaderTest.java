@@ -1,5 +1,6 @@
 package pokerga;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.io.File;
@@ -67,4 +68,54 @@ class HandReaderTest {
     }
   }
 
+  @Test
+  void testDeduplicate() throws IOException {
+    HandReader reader = new HandReader();
+    reader.setFile(new File("src/test/resources/data.test"));
+    HandTable table = reader.readTable();
+
+    reader.setDeduplicate(true);
+    HandTable deduplicated = reader.readTable();
+
+    // The royal flush in clubs appears twice
+    assertEquals(10, table.size());
+    assertEquals(9, deduplicated.size());
+    assertEquals(2, deduplicated.weight(3));
+    assertEquals(1, deduplicated.weight(4));
+    assertArrayEquals(table.totals(), deduplicated.totals());
+
+    // Organisms score the same either way
+    Interpreter interpreter = new Interpreter();
+    Organism organism = new Organism("organism", "00 A0 01 A0 5 7 09 9 8 08 9");
+    AggregatedResults results = new AggregatedResults();
+    AggregatedResults deduplicatedResults = new AggregatedResults();
+    results.aggregate(organism, table, interpreter.processBatch(organism, table));
+    deduplicatedResults.aggregate(organism, deduplicated, interpreter.processBatch(organism, deduplicated));
+    assertArrayEquals(results.getAggregatedResult(organism).correct(),
+        deduplicatedResults.getAggregatedResult(organism).correct());
+    assertArrayEquals(results.getAggregatedResult(organism).total(),
+        deduplicatedResults.getAggregatedResult(organism).total());
+  }
+
+  @Test
+  void testLoad() throws IOException {
+    HandReader reader = new HandReader();
+    reader.setFile(new File("src/test/resources/data.test"));
+    List<Hand> list = new ArrayList<>();
+    reader.read(list::add);
+
+    reader.setParallel(true);
+    HandDataset dataset = reader.load();
+    assertEquals(list.size(), dataset.size());
+    assertEquals(list.size(), dataset.rows());
+
+    int i = 0;
+    for (Hand hand : dataset) {
+      assertEquals(list.get(i).toString(), hand.toString());
+      assertEquals(list.get(i).toString(), dataset.get(i).toString());
+      i++;
+    }
+    assertEquals(list.size(), i);
+  }
+
 }
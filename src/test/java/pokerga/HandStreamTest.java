@@ -0,0 +1,56 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HandStreamTest {
+
+  private static HandReader reader(String file) {
+    HandReader reader = new HandReader();
+    reader.setFile(new File(file));
+    return reader;
+  }
+
+  @Test
+  void testBatches() throws IOException {
+    HandReader reader = reader("src/test/resources/data.test");
+    List<Hand> expecteds = new ArrayList<>();
+    reader.read(expecteds::add);
+
+    List<Hand> actuals = new ArrayList<>();
+    List<Integer> sizes = new ArrayList<>();
+    try (HandStream stream = new HandStream(reader, 4, 1)) {
+      for (HandTable batch; (batch = stream.next()) != null;) {
+        sizes.add(batch.size());
+        new HandDataset(batch).forEach(actuals::add);
+      }
+      assertNull(stream.next());
+    }
+
+    assertEquals(List.of(4, 4, 2), sizes);
+    assertEquals(expecteds.toString(), actuals.toString());
+  }
+
+  @Test
+  void testClose() {
+    // The reader is blocked on the full queue until the stream is closed
+    try (HandStream stream = new HandStream(reader("src/test/resources/data.test"), 1, 1)) {
+      assertEquals(1, stream.next().size());
+    }
+  }
+
+  @Test
+  void testFailure() {
+    try (HandStream stream = new HandStream(reader("src/test/resources/missing"), 4, 1)) {
+      assertThrows(IllegalStateException.class, stream::next);
+    }
+  }
+
+}
@@ -4,7 +4,6 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
-import com.carrotsearch.hppc.ByteStack;
 import java.nio.BufferUnderflowException;
 import org.junit.jupiter.api.Test;
 import pokerga.Card.Suit;
@@ -34,7 +33,7 @@ class InterpreterInstTest {
   @Test
   void testPush() {
     Inst inst = new Inst(null, "00 01 02 0A 0F", interpreter);
-    ByteStack stack = inst.stack;
+    OperandStack stack = inst.stack;
 
     inst.process();
 
@@ -51,7 +50,7 @@ class InterpreterInstTest {
   @Test
   void testNeg() {
     Inst inst = new Inst(null, "6", interpreter);
-    ByteStack stack = inst.stack;
+    OperandStack stack = inst.stack;
     stack.push((byte) 0);
     inst.process();
     assertEquals(1, stack.pop());
@@ -79,7 +78,7 @@ class InterpreterInstTest {
     // PUSH(1), IF, PUSH(A), ENDIF
     String subj = "01 7 0A 8";
     Inst inst = new Inst(null, subj, interpreter);
-    ByteStack stack = inst.stack;
+    OperandStack stack = inst.stack;
 
     inst.process();
 
@@ -146,7 +145,7 @@ class InterpreterInstTest {
 
     for (int i = 0; i < expecteds.length; i++) {
       Inst inst = new Inst(hand, "A0", interpreter);
-      ByteStack stack = inst.stack;
+      OperandStack stack = inst.stack;
       stack.push((byte) i);
 
       inst.process();
@@ -173,7 +172,7 @@ class InterpreterInstTest {
 
     for (int i = 0; i < expecteds.length; i++) {
       Inst inst = new Inst(hand, "A1", interpreter);
-      ByteStack stack = inst.stack;
+      OperandStack stack = inst.stack;
       stack.push((byte) i);
 
       inst.process();
@@ -202,7 +201,7 @@ class InterpreterInstTest {
 
     for (int i = 0; i < expecteds.length; i++) {
       Inst inst = new Inst(hand, "B0", interpreter);
-      ByteStack stack = inst.stack;
+      OperandStack stack = inst.stack;
       stack.push((byte) (i + 1));
       inst.process();
       assertEquals(expecteds[i], stack.pop());
@@ -230,7 +229,7 @@ class InterpreterInstTest {
 
     for (int i = 0; i < inputs.length; i++) {
       Inst inst = new Inst(hand, "B1", interpreter);
-      ByteStack stack = inst.stack;
+      OperandStack stack = inst.stack;
       stack.push((byte) inputs[i]);
       inst.process();
       assertEquals(expecteds[i], stack.pop());
@@ -243,7 +242,7 @@ class InterpreterInstTest {
   void testLoop() {
     String subj = "01 0A C D";
     Inst inst = new Inst(null, subj, interpreter);
-    ByteStack stack = inst.stack;
+    OperandStack stack = inst.stack;
 
     inst.process();
 
@@ -252,4 +251,29 @@ class InterpreterInstTest {
       assertEquals(i, stack.pop());
     }
   }
+
+
+  @Test
+  void testMaxSteps() {
+    // PUSH(1), PUSH(1), PUSH(1), PUSH(9), RET is five steps
+    Interpreter limited = new Interpreter();
+    limited.setMaxSteps(4);
+    Inst inst = new Inst(null, "01 01 01 09 9", limited);
+    assertEquals(-1, inst.process());
+    assertEquals(4, inst.steps);
+
+    limited.setMaxSteps(5);
+    inst = new Inst(null, "01 01 01 09 9", limited);
+    assertEquals(9, inst.process());
+    assertEquals(5, inst.steps);
+  }
+
+  @Test
+  void testStopAtNine() {
+    // PUSH(9), RET, PUSH(1), RET
+    Inst inst = new Inst(null, "09 9 01 9", interpreter);
+    assertEquals(9, inst.process());
+    assertEquals(2, inst.steps);
+    assertEquals(3, inst.pc);
+  }
 }
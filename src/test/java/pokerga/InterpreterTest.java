@@ -0,0 +1,69 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class InterpreterTest {
+
+  @Test
+  void testProcessBatch() throws IOException {
+    HandReader reader = new HandReader();
+    reader.setFile(new File("src/test/resources/data.test"));
+
+    List<Hand> hands = new ArrayList<>();
+    reader.read(hands::add);
+
+    HandTable.Builder builder = HandTable.newBuilder();
+    hands.forEach(builder::add);
+    HandTable table = builder.build();
+    assertEquals(hands.size(), table.size());
+
+    Interpreter interpreter = new Interpreter();
+    Random random = new Random(0);
+    for (int i = 0; i < 100; i++) {
+      Organism organism = new Organism("organism", Chromosomes.random(random, 256));
+
+      int[] results = interpreter.processBatch(organism, table);
+      for (int j = 0; j < hands.size(); j++) {
+        assertEquals(interpreter.evaluate(hands.get(j), organism), results[j]);
+      }
+    }
+  }
+
+  @Test
+  void testProfile() {
+    Interpreter interpreter = new Interpreter();
+    interpreter.setProfile(true);
+    assertEquals(false, interpreter.isVectorized());
+
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < 10; i++) {
+      builder.add(Hand.newBuilder()
+          .addCard(1, 1).addCard(2, 1).addCard(3, 1).addCard(4, 1).addCard(5, 1)
+          .evaluation(0).build());
+    }
+
+    // Loops over 1..3, returning 1, 2 and 3, then runs into the body once
+    // more with nothing left to return
+    Organism organism = new Organism("organism", "01 03 C 9 D");
+    interpreter.processBatch(organism, builder.build());
+
+    Profile profile = interpreter.collectProfile();
+    assertEquals(20, profile.executions[OpCode.PUSH.ordinal()]);
+    assertEquals(10, profile.executions[OpCode.LOOP.ordinal()]);
+    assertEquals(40, profile.executions[OpCode.RET.ordinal()]);
+    assertEquals(30, profile.returns);
+    assertEquals(30, profile.loopIterations);
+    assertEquals(2, profile.maxStack);
+
+    // Profiles start over
+    assertEquals(0, interpreter.collectProfile().executions[OpCode.PUSH.ordinal()]);
+  }
+
+}
@@ -0,0 +1,118 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class IslandCoordinatorTest {
+
+  private static ScoredResult score(String name, String chromosome, double score) {
+    int[] correct = new int[10];
+    int[] total = new int[10];
+    correct[1] = 3;
+    total[1] = 7;
+    return new ScoredResult(new Organism(name, chromosome), correct, total, score);
+  }
+
+  @Test
+  void testMigration() throws IOException {
+    List<ScoredResult> scores = List.of(score("00000001", "0123456789ABCDEF", 0.5), score("00000002", "F0A", 0.25));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Migration.write(new DataOutputStream(bytes), Migration.MIGRANTS, scores);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    assertEquals(Migration.MIGRANTS, in.readByte());
+    assertEquals(scores.toString(), Migration.read(in).toString());
+    assertEquals("F0A", Migration.unpack(Migration.pack("F0A"), 3));
+  }
+
+  @Test
+  void testNoise() throws IOException {
+    // Lowercase hexdigits are noise as much as any other character
+    String chromosome = "0a1 B-c2\nDzE3f";
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Migration.writeChromosome(new DataOutputStream(bytes), chromosome);
+    String genes = Migration.readChromosome(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals("01B2DE3", genes);
+    assertEquals(Program.compile(chromosome), Program.compile(genes));
+  }
+
+  @Test
+  void testRelay() throws Exception {
+    ServerSocket server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+    IslandCoordinator coordinator = new IslandCoordinator();
+    Thread thread = new Thread(() -> {
+      try (server) {
+        coordinator.evaluate(server);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    thread.start();
+
+    BlockingQueue<List<ScoredResult>> first = new ArrayBlockingQueue<>(1);
+    BlockingQueue<List<ScoredResult>> second = new ArrayBlockingQueue<>(1);
+    try (MigrationLink a = MigrationLink.connect(server.getLocalPort(), 5000, first::add);
+        MigrationLink b = MigrationLink.connect(server.getLocalPort(), 5000, second::add)) {
+
+      // The migrants of a process go to the next in the ring
+      List<ScoredResult> migrants = List.of(score("00000001", "09", 0.5));
+      a.send(migrants);
+      assertEquals(migrants.toString(), String.valueOf(second.poll(5, TimeUnit.SECONDS)));
+      b.send(migrants);
+      assertEquals(migrants.toString(), String.valueOf(first.poll(5, TimeUnit.SECONDS)));
+
+      a.finish(List.of(score("00000003", "19", 0.1)));
+      b.finish(List.of(score("00000004", "29", 0.3)));
+    }
+    thread.join();
+
+    List<ScoredResult> results = coordinator.getResults();
+    assertEquals(List.of("00000004", "00000003"),
+        results.stream().map(result -> result.getOrganism().getName()).toList());
+  }
+
+  @Test
+  void testCrashedProcess() throws Exception {
+    ServerSocket server = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+    IslandCoordinator coordinator = new IslandCoordinator();
+    Thread thread = new Thread(() -> {
+      try (server) {
+        coordinator.evaluate(server);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    thread.start();
+
+    // A process that crashes, before the other has finished, resets its
+    // connection
+    Socket crashed = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    crashed.setSoLinger(true, 0);
+    crashed.getOutputStream().write(Migration.MIGRANTS);
+    crashed.close();
+
+    try (MigrationLink link = MigrationLink.connect(server.getLocalPort(), 5000, migrants -> {
+    })) {
+      link.finish(List.of(score("00000003", "19", 0.1)));
+    }
+    thread.join();
+
+    // The results of the other process still count
+    assertEquals(List.of("00000003"),
+        coordinator.getResults().stream().map(result -> result.getOrganism().getName()).toList());
+  }
+
+}
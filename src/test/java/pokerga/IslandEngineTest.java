@@ -0,0 +1,151 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import pokerga.init.InitialPopulation;
+import pokerga.init.OrganismFactory;
+import pokerga.init.RandomOrganism;
+import pokerga.op.Filter;
+import pokerga.op.Operator;
+import pokerga.op.RandomMutator;
+import pokerga.op.RandomSelector;
+import pokerga.score.StandardScorer;
+
+class IslandEngineTest {
+
+  private static final int ISLANDS = 3;
+  private static final int MIGRANTS = 2;
+
+  @Test
+  void testMigration() throws Exception {
+    HandReader reader = new HandReader();
+    reader.setFile(new File("src/test/resources/data.test"));
+
+    RandomOrganism initialSupplier = new RandomOrganism();
+    initialSupplier.setChromosomeLength(64);
+    initialSupplier.setFactory(new OrganismFactory());
+    initialSupplier.setRandom(new Random(0));
+    InitialPopulation initial = new InitialPopulation();
+    initial.setPopulationSize(20);
+    initial.setOrganismSupplier(initialSupplier);
+
+    // Every island breeds with a factory of its own, whose names start with
+    // the number of the island, and carries no organism over unchanged, so
+    // that the origin of every organism after the first generation is known
+    CyclicBarrier barrier = new CyclicBarrier(ISLANDS);
+    List<Recorder> recorders = new ArrayList<>();
+    List<Operator> operators = new ArrayList<>();
+    for (int i = 0; i < ISLANDS; i++) {
+      OrganismFactory factory = new OrganismFactory();
+      factory.setCounter(new AtomicInteger((i + 1) << 24));
+      RandomOrganism supplier = new RandomOrganism();
+      supplier.setChromosomeLength(64);
+      supplier.setFactory(factory);
+      supplier.setRandom(new Random(10 + i));
+      RandomSelector selector = new RandomSelector();
+      selector.setCount(10);
+      selector.setRandom(new Random(20 + i));
+      RandomMutator mutator = new RandomMutator();
+      mutator.setOrganismChance(100);
+      mutator.setGeneChance(10);
+      mutator.setRandom(new Random(30 + i));
+
+      Recorder recorder = new Recorder(barrier);
+      recorders.add(recorder);
+      Operator operator = new Operator();
+      operator.setFilters(List.of(recorder));
+      operator.setSelectors(List.of(selector));
+      operator.setMutators(List.of(mutator));
+      operator.setFactory(factory);
+      operator.setSupplier(supplier);
+      operator.setPopulationSize(20);
+      operator.afterPropertiesSet();
+      operators.add(operator);
+    }
+
+    // Migrations after the second and fourth generations, which the next
+    // island takes in by the fifth
+    IslandEngine engine = new IslandEngine();
+    engine.setHandReader(reader);
+    engine.setInitialPopulation(initial);
+    engine.setInterpreter(new Interpreter());
+    engine.setScorer(new StandardScorer());
+    engine.setOperators(operators);
+    engine.setGenerations(6);
+    engine.setMigrationInterval(2);
+    engine.setMigrants(MIGRANTS);
+    engine.afterPropertiesSet();
+    engine.evaluate();
+
+    for (int i = 0; i < ISLANDS; i++) {
+      Recorder previous = recorders.get((i + ISLANDS - 1) % ISLANDS);
+      String origin = String.format("%02X", (i + ISLANDS - 1) % ISLANDS + 1);
+
+      // The best organisms of the previous island when it emigrated
+      Set<Organism> emigrants = new HashSet<>();
+      for (int generation : new int[] { 1, 3 }) {
+        int count = 0;
+        for (ScoredResult score : previous.bred.get(generation)) {
+          if (count < MIGRANTS && score.getOrganism().getName().startsWith(origin)) {
+            emigrants.add(score.getOrganism());
+            count++;
+          }
+        }
+        assertEquals(MIGRANTS, count);
+      }
+
+      // Every one of them is bred by this island, and no other organism of
+      // another island is
+      Set<Organism> immigrants = new HashSet<>();
+      String own = String.format("%02X", i + 1);
+      List<List<ScoredResult>> bred = recorders.get(i).bred;
+      for (List<ScoredResult> scores : bred.subList(1, bred.size())) {
+        for (ScoredResult score : scores) {
+          if (!score.getOrganism().getName().startsWith(own)) {
+            immigrants.add(score.getOrganism());
+          }
+        }
+      }
+      assertEquals(emigrants, immigrants);
+      for (List<ScoredResult> scores : bred) {
+        assertTrue(scores.size() >= 20);
+      }
+    }
+  }
+
+
+  /**
+   * Records the scores an island breeds from every generation, and keeps the
+   * islands in step, so that every migration arrives before the last.
+   */
+  private static final class Recorder implements Filter {
+    private final CyclicBarrier barrier;
+    private final List<List<ScoredResult>> bred = new ArrayList<>();
+
+    Recorder(CyclicBarrier barrier) {
+      this.barrier = barrier;
+    }
+
+    @Override
+    public List<ScoredResult> filter(List<ScoredResult> scores) {
+      bred.add(scores);
+      try {
+        barrier.await(30, TimeUnit.SECONDS);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+      return scores;
+    }
+  }
+}
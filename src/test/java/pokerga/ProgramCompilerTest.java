@@ -0,0 +1,99 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ProgramCompilerTest {
+
+  @Test
+  void testSameResults() {
+    Random random = new Random(0);
+    Interpreter interpreter = new Interpreter();
+    interpreter.setCompileThreshold(0);
+
+    List<Hand> hands = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      Hand.Builder builder = Hand.newBuilder();
+      for (int j = 0; j < 5; j++) {
+        builder.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+      }
+      hands.add(builder.evaluation(random.nextInt(10)).build());
+    }
+
+    for (int i = 0; i < 200; i++) {
+      Organism organism = new Organism("organism", Chromosomes.random(random, 16 * (random.nextInt(16) + 1)));
+
+      CompiledProgram compiled = ProgramCompiler.compile(organism.getProgram(), interpreter);
+      assertNotNull(compiled);
+
+      for (Hand hand : hands) {
+        int expected = interpreter.process(hand, organism).getResult();
+        assertEquals(expected, compiled.eval(hand), () -> "Compiled result differs for " + organism.getChromosome());
+      }
+    }
+  }
+
+  @Test
+  void testSameSteps() {
+    Random random = new Random(1);
+    Interpreter interpreter = new Interpreter();
+    interpreter.setMaxSteps(50);
+
+    Hand.Builder builder = Hand.newBuilder();
+    for (int j = 0; j < 5; j++) {
+      builder.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+    }
+    Hand hand = builder.evaluation(0).build();
+
+    for (int i = 0; i < 200; i++) {
+      Program program = Program.compile(Chromosomes.random(random, 16 * (random.nextInt(16) + 1)));
+      CompiledProgram compiled = ProgramCompiler.compile(program, interpreter);
+
+      Interpreter.Inst inst = interpreter.context();
+      int expected = inst.reset(hand, program).process();
+      int steps = inst.steps;
+      assertEquals(expected, compiled.eval(inst.reset(hand, program)));
+      assertEquals(steps, inst.steps, () -> "Compiled steps differ for " + program);
+    }
+  }
+
+  @Test
+  void testPromote() {
+    Interpreter interpreter = new Interpreter();
+    interpreter.setCompileThreshold(2);
+
+    Organism survivor = new Organism("survivor", "01 9");
+    Organism offspring = new Organism("offspring", "02 9");
+
+    interpreter.promote(new Population(0, List.of(survivor)));
+    assertNull(survivor.getCompiled());
+
+    assertEquals(1, interpreter.promote(new Population(1, List.of(survivor, offspring))));
+    assertNotNull(survivor.getCompiled());
+    assertNull(offspring.getCompiled());
+  }
+
+  @Test
+  void testPromoteLineages() {
+    Interpreter interpreter = new Interpreter();
+    interpreter.setCompileThreshold(2);
+
+    Organism first = new Organism("first", "01 9");
+    Organism second = new Organism("second", "02 9");
+
+    // Promoting one island does not forget the survivors of the other
+    interpreter.promote(new Population(0, List.of(first)), "first");
+    interpreter.promote(new Population(0, List.of(second)), "second");
+    assertEquals(1, interpreter.promote(new Population(1, List.of(first)), "first"));
+    assertEquals(1, interpreter.promote(new Population(1, List.of(second)), "second"));
+    assertNotNull(first.getCompiled());
+    assertNotNull(second.getCompiled());
+  }
+
+}
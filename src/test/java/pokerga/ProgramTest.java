@@ -0,0 +1,84 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import pokerga.Interpreter.Inst;
+
+class ProgramTest {
+
+  // Biased towards the nibbles the canonical form is about
+  private static final char[] hex = "0123456789ABCDEFEF99C".toCharArray();
+
+  @Test
+  void testNoise() {
+    Program program = Program.compile(" 0a 1x-F\n");
+    assertEquals(3, program.length());
+    assertArrayEquals(new byte[] { 0x0, 0x1, 0xF }, program.codes);
+    assertArrayEquals(new OpCode[] { OpCode.PUSH, OpCode.DUP, OpCode.UNK }, program.ops);
+  }
+
+  @Test
+  void testJumps() {
+    // IF, PUSH(8), ENDIF, IF
+    // The false branch of the first IF lands after the operand of the PUSH,
+    // since it is the first ENDIF digit that follows.
+    Program program = Program.compile("7 08 8 7");
+    int[] expecteds = { 3, 3, 4, 5, 5 };
+    assertArrayEquals(expecteds, program.jumps);
+  }
+
+  @Test
+  void testCanonical() {
+    // Unknown opcodes are dropped, unless they are the operand of a PUSH
+    assertArrayEquals(new byte[] { 0x0, 0xE, 0x9 }, Program.compile("E 0E F 9").canonical().codes);
+
+    // Nothing follows the final RET
+    assertArrayEquals(new byte[] { 0x0, 0x5, 0x9 }, Program.compile("05 9 03 3").canonical().codes);
+
+    // Unless a LOOP may take execution back to it
+    Program loop = Program.compile("01 05 C 9 D 0");
+    assertEquals(loop, loop.canonical());
+
+    // A program that never returns is empty
+    assertEquals(0, Program.compile("7 08 8 7").canonical().length());
+
+    assertEquals(Program.compile("05 9"), Program.compile("E05F9 1").canonical());
+    assertEquals(Program.compile("05 9").fingerprint(), Program.compile("E05F9").canonical().fingerprint());
+    assertNotEquals(Program.compile("05 9"), Program.compile("06 9"));
+  }
+
+  @Test
+  void testSameResults() {
+    Random random = new Random(0);
+    Interpreter interpreter = new Interpreter();
+    interpreter.setMaxSteps(64);
+    Interpreter unlimited = new Interpreter();
+
+    for (int i = 0; i < 2000; i++) {
+      StringBuilder sb = new StringBuilder();
+      for (int j = 0, n = random.nextInt(64) + 1; j < n; j++) {
+        sb.append(hex[random.nextInt(hex.length)]);
+      }
+      Program program = Program.compile(sb.toString());
+      Program canonical = program.canonical();
+
+      for (int j = 0; j < 20; j++) {
+        Hand.Builder builder = Hand.newBuilder();
+        for (int k = 0; k < 5; k++) {
+          builder.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+        }
+        Hand hand = builder.evaluation(0).build();
+
+        for (Interpreter each : new Interpreter[] { interpreter, unlimited }) {
+          assertEquals(new Inst(hand, program, each).process(), new Inst(hand, canonical, each).process(),
+              () -> "Canonical result differs for " + sb);
+        }
+      }
+    }
+  }
+
+}
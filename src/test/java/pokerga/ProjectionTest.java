@@ -0,0 +1,76 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ProjectionTest {
+
+  private static HandTable table(Random random, int size) {
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < size; i++) {
+      Hand.Builder hand = Hand.newBuilder();
+      for (int j = 0; j < 5; j++) {
+        hand.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+      }
+      builder.add(hand.evaluation(random.nextInt(10)).build());
+    }
+    return builder.build();
+  }
+
+  @Test
+  void testFeatures() {
+    Interpreter interpreter = new Interpreter();
+
+    // READ of a rank, the operand of the PUSH is not an instruction
+    assertEquals(Projection.RANKS, interpreter.triage(new Organism("rank", "00 A0 9")).features);
+    assertEquals(Projection.SUITS, interpreter.triage(new Organism("suit", "00 A1 9")).features);
+    assertEquals(Projection.SUIT_COUNTS, interpreter.triage(new Organism("count", "01 B1 9")).features);
+    assertEquals(0, interpreter.triage(new Organism("none", "05 9")).features);
+
+    // Once the rank decides the IF, the suit read in its body may be too
+    assertEquals(Projection.ALL,
+        interpreter.triage(new Organism("if", "00 A0 01 5 7 00 A1 9 8")).features);
+  }
+
+  @Test
+  void testPartition() {
+    HandTable table = table(new Random(0), 1000);
+
+    // Four suits can be dealt to five cards in 56 ways
+    Projection counts = table.projection(Projection.SUIT_COUNTS);
+    assertTrue(counts.size() <= 56);
+    assertEquals(1, table.projection(0).size());
+
+    for (int i = 0; i < table.size(); i++) {
+      HandTable representatives = counts.representatives;
+      int representative = counts.classes[i];
+      assertEquals(Projection.key(table, i, Projection.SUIT_COUNTS),
+          Projection.key(representatives, representative, Projection.SUIT_COUNTS));
+    }
+  }
+
+  @Test
+  void testSameResults() {
+    Random random = new Random(0);
+    HandTable table = table(random, 3000);
+
+    Interpreter memoized = new Interpreter();
+    Interpreter unmemoized = new Interpreter();
+    unmemoized.setMemoCapacity(0);
+
+    for (int i = 0; i < 300; i++) {
+      Organism organism = new Organism("organism", Chromosomes.random(random, 16 * (random.nextInt(8) + 1)));
+
+      assertArrayEquals(unmemoized.processBatch(organism, table), memoized.processBatch(organism, table),
+          () -> "Memoized results differ for " + organism.getChromosome());
+    }
+
+    assertTrue(memoized.getMemoHits() > 0);
+    assertEquals(0, unmemoized.getMemoHits());
+  }
+
+}
@@ -0,0 +1,71 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import pokerga.init.InitialPopulation;
+import pokerga.init.OrganismFactory;
+import pokerga.init.RandomOrganism;
+import pokerga.op.CrossOverMutator;
+import pokerga.op.RandomMutator;
+import pokerga.op.RandomSelector;
+import pokerga.score.StandardScorer;
+
+class SteadyStateEngineTest {
+
+  @Test
+  void testEvaluate() throws Exception {
+    HandReader reader = new HandReader();
+    reader.setFile(new File("src/test/resources/data.test"));
+
+    OrganismFactory factory = new OrganismFactory();
+    RandomOrganism supplier = new RandomOrganism();
+    supplier.setChromosomeLength(64);
+    supplier.setFactory(factory);
+    supplier.setRandom(new Random(0));
+    InitialPopulation initial = new InitialPopulation();
+    initial.setPopulationSize(20);
+    initial.setOrganismSupplier(supplier);
+
+    RandomSelector selector = new RandomSelector();
+    selector.setCount(2);
+    selector.setRandom(new Random(1));
+    CrossOverMutator crossOver = new CrossOverMutator();
+    crossOver.setRandom(new Random(2));
+    RandomMutator mutator = new RandomMutator();
+    mutator.setOrganismChance(100);
+    mutator.setGeneChance(10);
+    mutator.setRandom(new Random(3));
+
+    SteadyStateEngine engine = new SteadyStateEngine();
+    engine.setHandReader(reader);
+    engine.setInitialPopulation(initial);
+    engine.setInterpreter(new Interpreter());
+    engine.setScorer(new StandardScorer());
+    engine.setSelector(selector);
+    engine.setMutators(List.of(crossOver, mutator));
+    engine.setFactory(factory);
+    engine.setOffspring(200);
+    engine.setThreads(2);
+    engine.afterPropertiesSet();
+    engine.evaluate();
+
+    // The best scores first, one member of every program
+    List<ScoredResult> results = engine.getResults();
+    assertEquals(20, results.size());
+    Set<Program> programs = new HashSet<>();
+    for (int i = 0; i < results.size(); i++) {
+      if (i > 0) {
+        assertTrue(results.get(i - 1).getScore() >= results.get(i).getScore());
+      }
+      assertTrue(programs.add(results.get(i).getOrganism().getProgram()));
+    }
+  }
+
+}
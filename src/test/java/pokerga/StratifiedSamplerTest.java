@@ -0,0 +1,90 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class StratifiedSamplerTest {
+
+  // Skewed like the poker data, most hands are of the first classes
+  private static HandTable table() {
+    Random random = new Random(0);
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < 5000; i++) {
+      Hand.Builder hand = Hand.newBuilder();
+      for (int j = 0; j < 5; j++) {
+        hand.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+      }
+      int evaluation = Math.min(9, (int) -Math.log(random.nextDouble()));
+      builder.add(hand.evaluation(evaluation).build(), random.nextInt(3) + 1);
+    }
+    return builder.build();
+  }
+
+  private static Set<String> hands(HandTable table) {
+    Set<String> hands = new HashSet<>();
+    new HandDataset(table).forEach(hand -> hands.add(hand.toString()));
+    return hands;
+  }
+
+  @Test
+  void testSample() {
+    HandTable table = table();
+    HandClasses classes = new HandClasses(table);
+    StratifiedSampler sampler = new StratifiedSampler();
+    sampler.setSize(100);
+
+    HandTable sample = sampler.sample(classes, 0);
+    int[] counts = new int[HandClasses.CLASSES];
+    for (int i = 0; i < sample.size(); i++) {
+      counts[sample.evaluation(i)]++;
+    }
+    for (int c = 0; c < HandClasses.CLASSES; c++) {
+      assertEquals(Math.min(100, classes.size(c)), counts[c]);
+    }
+    // Distinct hands of the table
+    assertEquals(sample.size(), hands(sample).size());
+    assertTrue(hands(table).containsAll(hands(sample)));
+
+    // The same seed draws the same hands, every generation its own
+    assertArrayEquals(sample.evaluations, sampler.sample(classes, 0).evaluations);
+    assertArrayEquals(sample.ranks, sampler.sample(classes, 0).ranks);
+    assertFalse(Arrays.equals(sample.ranks, sampler.sample(classes, 1).ranks));
+    sampler.setSeed(1);
+    assertFalse(Arrays.equals(sample.ranks, sampler.sample(classes, 0).ranks));
+  }
+
+  @Test
+  void testSizes() {
+    HandClasses classes = new HandClasses(table());
+    StratifiedSampler sampler = new StratifiedSampler();
+    sampler.setSizes(new int[] { 0, 10, 10, 10, 10, 10, 10, 10, 10, 1_000_000 });
+
+    HandTable sample = sampler.sample(classes, 0);
+    assertEquals(0, count(sample, 0));
+    assertEquals(10, count(sample, 1));
+    assertEquals(classes.size(9), count(sample, 9));
+
+    assertThrows(IllegalArgumentException.class, () -> sampler.setSizes(new int[] { 1 }));
+    assertThrows(IllegalArgumentException.class, () -> sampler.setSize(0));
+  }
+
+  private static int count(HandTable table, int evaluation) {
+    int count = 0;
+    for (int i = 0; i < table.size(); i++) {
+      if (table.evaluation(i) == evaluation) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,66 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import pokerga.Triage.Kind;
+
+class TriageTest {
+
+  @Test
+  void testKinds() {
+    Interpreter interpreter = new Interpreter();
+
+    assertEquals(Kind.NEVER_RETURNS, interpreter.triage(new Organism("empty", "")).getKind());
+    assertEquals(Kind.NEVER_RETURNS, interpreter.triage(new Organism("range", "0F 9")).getKind());
+
+    Triage constant = interpreter.triage(new Organism("constant", "05 9"));
+    assertEquals(Kind.CONSTANT, constant.getKind());
+    assertEquals(5, constant.getValue());
+
+    // The rank is read, but dropped
+    Triage dropped = interpreter.triage(new Organism("dropped", "00 A0 2 03 9"));
+    assertEquals(Kind.CONSTANT, dropped.getKind());
+    assertEquals(3, dropped.getValue());
+
+    // A suit plus 10 is always out of range
+    assertEquals(Kind.NEVER_RETURNS, interpreter.triage(new Organism("suit", "00 A1 0A 3 9")).getKind());
+
+    assertEquals(Kind.HAND_DEPENDENT, interpreter.triage(new Organism("rank", "00 A0 9")).getKind());
+    assertEquals(Kind.HAND_DEPENDENT, interpreter.triage(new Organism("if", "00 A0 01 5 7 05 9 8")).getKind());
+
+    // A rank is never zero, so the IF is taken for every hand
+    Triage taken = interpreter.triage(new Organism("taken", "00 A0 7 05 9 8"));
+    assertEquals(Kind.CONSTANT, taken.getKind());
+    assertEquals(5, taken.getValue());
+  }
+
+  @Test
+  void testSameResults() {
+    Random random = new Random(0);
+    Interpreter interpreter = new Interpreter();
+
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < 500; i++) {
+      Hand.Builder hand = Hand.newBuilder();
+      for (int j = 0; j < 5; j++) {
+        hand.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+      }
+      builder.add(hand.evaluation(random.nextInt(10)).build());
+    }
+    HandTable table = builder.build();
+
+    for (int i = 0; i < 1000; i++) {
+      Organism organism = new Organism("organism", Chromosomes.random(random, 16 * (random.nextInt(8) + 1)));
+
+      Triage triage = interpreter.triage(organism);
+      if (!triage.isHandDependent()) {
+        for (int result : interpreter.processBatch(organism, table)) {
+          assertEquals(triage.getValue(), result, () -> "Triage is wrong for " + organism.getChromosome());
+        }
+      }
+    }
+  }
+
+}
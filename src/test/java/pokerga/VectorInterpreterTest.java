@@ -0,0 +1,91 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class VectorInterpreterTest {
+
+  @Test
+  void testSameResults() {
+    Random random = new Random(0);
+    Interpreter vectorized = new Interpreter();
+    vectorized.setCompileThreshold(0);
+    assertTrue(vectorized.isVectorized());
+
+    Interpreter scalar = new Interpreter();
+    scalar.setVectorize(false);
+
+    // Not a multiple of the lane count, so the last block is partial
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < 1000; i++) {
+      Hand.Builder hand = Hand.newBuilder();
+      for (int j = 0; j < 5; j++) {
+        hand.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+      }
+      builder.add(hand.evaluation(random.nextInt(10)).build());
+    }
+    HandTable table = builder.build();
+
+    for (int i = 0; i < 200; i++) {
+      Organism organism = new Organism("organism", Chromosomes.random(random, 16 * (random.nextInt(32) + 1)));
+
+      assertArrayEquals(scalar.processBatch(organism, table), vectorized.processBatch(organism, table),
+          () -> "Vectorized results differ for " + organism.getChromosome());
+    }
+  }
+
+  @Test
+  void testSameSteps() {
+    Random random = new Random(1);
+    HandTable.Builder builder = HandTable.newBuilder();
+    for (int i = 0; i < 300; i++) {
+      Hand.Builder hand = Hand.newBuilder();
+      for (int j = 0; j < 5; j++) {
+        hand.addCard(random.nextInt(13) + 1, random.nextInt(4) + 1);
+      }
+      builder.add(hand.evaluation(random.nextInt(10)).build());
+    }
+    HandTable table = builder.build();
+
+    for (int maxSteps : new int[] { 0, 25, 100 }) {
+      Interpreter vectorized = new Interpreter();
+      vectorized.setMaxSteps(maxSteps);
+      vectorized.setMemoCapacity(0);
+
+      Interpreter scalar = new Interpreter();
+      scalar.setMaxSteps(maxSteps);
+      scalar.setMemoCapacity(0);
+      scalar.setVectorize(false);
+
+      for (int i = 0; i < 100; i++) {
+        Organism organism = new Organism("organism", Chromosomes.random(random, 16 * (random.nextInt(16) + 1)));
+
+        int[] expected = new int[table.size()];
+        int[] actual = new int[table.size()];
+        assertEquals(scalar.processBatch(organism, table, expected), vectorized.processBatch(organism, table, actual));
+        assertArrayEquals(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  void testColumns() {
+    HandTable table = HandTable.newBuilder()
+        .add(Hand.newBuilder().addCard(1, 1).addCard(2, 2).addCard(3, 3).addCard(4, 4).addCard(5, 1).evaluation(0).build())
+        .add(Hand.newBuilder().addCard(13, 4).addCard(12, 3).addCard(11, 2).addCard(10, 1).addCard(9, 4).evaluation(5).build())
+        .build();
+
+    assertEquals(HandTable.LANES, table.stride());
+    for (int card = 0; card < HandTable.CARDS; card++) {
+      for (int hand = 0; hand < table.size(); hand++) {
+        assertEquals(table.rank(hand, card), table.rankColumns()[card * table.stride() + hand]);
+        assertEquals(table.suit(hand, card), table.suitColumns()[card * table.stride() + hand]);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+package pokerga;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class WorkerFarmTest {
+
+  @Test
+  void testEvaluate() throws Exception {
+    HandReader reader = new HandReader();
+    reader.setFile(new File("src/test/resources/data.test"));
+    Interpreter interpreter = new Interpreter();
+    interpreter.setMaxSteps(4096);
+    HandTable table = reader.load().getTable();
+    List<List<Organism>> groups = groups();
+
+    WorkerFarm farm = new WorkerFarm();
+    farm.setHandReader(reader);
+    farm.setInterpreter(interpreter);
+    farm.setWorkers(2);
+    farm.setBatchSize(3);
+    farm.afterPropertiesSet();
+    try {
+      for (int run = 0; run < 2; run++) {
+        AggregatedResults farmed = new AggregatedResults();
+        farm.evaluate(groups, farmed);
+        assertResults(groups, farmed, interpreter, table);
+
+        // The batches in flight to a failed worker are evaluated again
+        farm.kill(0);
+      }
+    } finally {
+      farm.destroy();
+    }
+  }
+
+  @Test
+  void testRetire() throws Exception {
+    HandReader reader = new HandReader();
+    reader.setFile(new File("src/test/resources/data.test"));
+    Interpreter interpreter = new Interpreter();
+    interpreter.setMaxSteps(4096);
+    HandTable table = reader.load().getTable();
+    List<List<Organism>> groups = groups();
+
+    WorkerFarm farm = new WorkerFarm();
+    farm.setHandReader(reader);
+    farm.setInterpreter(interpreter);
+    farm.setWorkers(2);
+    farm.setBatchSize(3);
+    farm.setRetries(1);
+    farm.afterPropertiesSet();
+    try {
+      farm.evaluate(groups, new AggregatedResults());
+
+      // The worker that keeps failing is retired, the other one evaluates
+      // every batch, this time and the next
+      farm.disable(0);
+      for (int run = 0; run < 2; run++) {
+        AggregatedResults farmed = new AggregatedResults();
+        farm.evaluate(groups, farmed);
+        assertResults(groups, farmed, interpreter, table);
+      }
+
+      farm.disable(1);
+      assertThrows(IllegalStateException.class, () -> farm.evaluate(groups, new AggregatedResults()));
+    } finally {
+      farm.destroy();
+    }
+  }
+
+  private static List<List<Organism>> groups() {
+    Random random = new Random(0);
+    List<List<Organism>> groups = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      groups.add(List.of(new Organism(String.valueOf(i), Chromosomes.random(random, 64))));
+    }
+    return groups;
+  }
+
+  private static void assertResults(List<List<Organism>> groups, AggregatedResults farmed, Interpreter interpreter,
+      HandTable table) {
+    for (List<Organism> group : groups) {
+      Organism organism = group.get(0);
+      AggregatedResults local = new AggregatedResults();
+      Triage triage = interpreter.triage(organism);
+      if (triage.isHandDependent()) {
+        int[] evaluations = new int[table.size()];
+        local.aggregate(organism, table, evaluations, interpreter.processBatch(organism, table, evaluations));
+      } else {
+        local.aggregate(organism, table.totals(), triage.getValue());
+      }
+      assertArrayEquals(local.getAggregatedResult(organism).correct(), farmed.getAggregatedResult(organism).correct());
+      assertArrayEquals(local.getAggregatedResult(organism).total(), farmed.getAggregatedResult(organism).total());
+      assertEquals(local.getAggregatedResult(organism).getSteps(), farmed.getAggregatedResult(organism).getSteps());
+    }
+  }
+
+}
@@ -0,0 +1,48 @@
+package pokerga.score;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ScoreBoundsTest {
+
+  private static final int[] totals = { 100, 50, 0, 10 };
+
+  @Test
+  void testComplete() {
+    ScoreBounds bounds = new ScoreBounds(totals, 0.95);
+    int[] correct = { 80, 25, 0, 10 };
+    double score = (0.8 + 0.5 + 1.0) / 4;
+    assertEquals(score, bounds.lower(correct, totals), 1e-12);
+    assertEquals(score, bounds.upper(correct, totals), 1e-12);
+  }
+
+  @Test
+  void testPartial() {
+    ScoreBounds bounds = new ScoreBounds(totals, 0.95);
+    int[] correct = { 40, 10, 0, 0 };
+    int[] seen = { 50, 20, 0, 0 };
+
+    // Around the observed accuracies, within what remains possible. Nothing was
+    // seen of the last class, it may be all wrong or all right
+    double lower = bounds.lower(correct, seen);
+    double upper = bounds.upper(correct, seen);
+    assertTrue(lower < (0.8 + 0.5 + 0.0) / 4);
+    assertTrue(upper > (0.8 + 0.5 + 1.0) / 4);
+    assertTrue(lower >= (0.4 + 0.2 + 0.0) / 4 - 1e-12);
+    assertTrue(upper <= (0.9 + 0.8 + 1.0) / 4 + 1e-12);
+
+    // Tighter with more hands seen, looser with more confidence
+    assertTrue(bounds.lower(new int[] { 80, 20, 0, 0 }, new int[] { 100, 40, 0, 0 }) > lower);
+    assertTrue(new ScoreBounds(totals, 0.99).upper(correct, seen) > upper);
+  }
+
+  @Test
+  void testConfidence() {
+    assertThrows(IllegalArgumentException.class, () -> new ScoreBounds(totals, 1.0));
+    assertThrows(IllegalArgumentException.class, () -> new ScoreBounds(totals, 0.0));
+  }
+
+}